@@ -12,13 +12,21 @@ import android.view.SurfaceHolder;
 
 import com.greenpudding.activities.MainActivity;
 import com.greenpudding.model.PuddingModel;
+import com.greenpudding.thread.FrameScheduler;
+import com.greenpudding.thread.FrameStats;
+import com.greenpudding.thread.GravitySlot;
+import com.greenpudding.thread.LatencyMonitor;
 import com.greenpudding.thread.PuddingRunner;
+import com.greenpudding.thread.TouchEventQueue;
+import com.greenpudding.util.BackgroundImage;
+import com.greenpudding.util.GravityFilter;
 import com.greenpudding.util.PuddingConfigurator;
 
 public class PuddingFacade implements SensorEventListener {
 
     // use to scale the hardware provided gravity
     public static float GRAVITY_SCALER = 0.5f;
+    private static final long NANOS_PER_MILLI = 1000000L;
     // a reference to the app preference
     private SharedPreferences prefs;
     // the physical model of the pudding
@@ -26,11 +34,28 @@ public class PuddingFacade implements SensorEventListener {
     private SensorManager sensorManager;
     private Sensor accelerometer;
     private boolean isAccelerometerPresent;
+    // smooths the accelerometer samples into a steady gravity
+    private GravityFilter gravityFilter = new GravityFilter();
+    // hands the filtered gravity over to the simulation thread
+    private GravitySlot gravitySlot = new GravitySlot();
+    // hands the touch events over to the simulation thread
+    private TouchEventQueue touchEventQueue = new TouchEventQueue();
+    // the picture behind the pudding. outlives the thread so it's only decoded again when
+    // the picture or the surface size changes
+    private BackgroundImage backgroundImage = new BackgroundImage();
+    // how long touches take to show. outlives the thread so prediction starts from the last
+    // measure after a restart
+    private LatencyMonitor latencyMonitor = new LatencyMonitor();
+    // where the time of the frames goes. outlives the thread so the numbers cover restarts
+    private FrameStats frameStats = new FrameStats();
 
     private SurfaceHolder surfaceHolder;
 
-    private PuddingRunner puddingRunner;
+    // null while stopped
+    private volatile PuddingRunner puddingRunner;
     private Thread puddingRunnerThread;
+    // paces the simulation thread. outlives the thread so settings survive restarts
+    private FrameScheduler frameScheduler = new FrameScheduler();
     private PuddingConfigurator configurator;
 
     public SharedPreferences getPrefs() {
@@ -58,6 +83,22 @@ public class PuddingFacade implements SensorEventListener {
     }
 
 
+    public LatencyMonitor getLatencyMonitor() {
+        return latencyMonitor;
+    }
+
+    public FrameStats getFrameStats() {
+        return frameStats;
+    }
+
+    /**
+     * @return the percentiles of each phase of the recent frames, in milliseconds, one line per
+     * phase. e.g. to attach to a report of jank
+     */
+    public String dumpFrameStats() {
+        return frameStats.dump();
+    }
+
     public SurfaceHolder getSurfaceHolder() {
         return surfaceHolder;
     }
@@ -67,26 +108,34 @@ public class PuddingFacade implements SensorEventListener {
     }
 
     public void setBoundingRect(Rect rect) {
-        pudding.setBoundingRect(rect);
+        synchronized (pudding) {
+            pudding.setBounds(rect.left, rect.top, rect.right, rect.bottom);
+        }
+        backgroundImage.setSize(rect.width(), rect.height());
+        wakeUpRunner();
     }
 
     public void start() {
         // start listening on the sensor
-        if (isAccelerometerPresent && pudding.getIsGravityEnabled()) {
-            sensorManager.registerListener(this, accelerometer, SensorManager.SENSOR_DELAY_NORMAL);
-        }
+        registerSensorListener();
 
-        puddingRunner = new PuddingRunner(surfaceHolder);
-        puddingRunner.setPudding(pudding);
-        puddingRunnerThread = new Thread(puddingRunner);
+        PuddingRunner runner = new PuddingRunner(surfaceHolder, frameScheduler);
+        runner.setPudding(pudding);
+        runner.setGravitySlot(gravitySlot);
+        // events queued while stopped are stale
+        touchEventQueue.clear();
+        runner.setTouchEventQueue(touchEventQueue);
+        runner.setBackgroundImage(backgroundImage);
+        runner.setLatencyMonitor(latencyMonitor);
+        runner.setFrameStats(frameStats);
+        puddingRunnerThread = new Thread(runner);
+        puddingRunner = runner;
         puddingRunnerThread.start();
     }
 
     public void stop() {
         // stop monitoring the sensor
-        if (isAccelerometerPresent) {
-            sensorManager.unregisterListener(this);
-        }
+        unregisterSensorListener();
         boolean retry = true;
         puddingRunner.setStopFlag(true);
         while (retry) {
@@ -96,57 +145,83 @@ public class PuddingFacade implements SensorEventListener {
             } catch (InterruptedException e) {
             }
         }
+        puddingRunner = null;
     }
 
+    private void registerSensorListener() {
+        if (isAccelerometerPresent && pudding.getIsGravityEnabled()) {
+            gravityFilter.reset();
+            sensorManager.registerListener(this, accelerometer, gravityFilter.getSamplingPeriodUs());
+        }
+    }
 
-    public boolean onTouchEvent(MotionEvent event) {
-        synchronized (surfaceHolder) {
-            // the below code modifies the pudding object, so we lock onto the surface holder
-            // and make sure the rendering thread don't interfere with pudding obj
-            processTouchEvent(event);
+    private void unregisterSensorListener() {
+        if (isAccelerometerPresent) {
+            sensorManager.unregisterListener(this);
         }
+    }
+
+
+    public boolean onTouchEvent(MotionEvent event) {
+        // the events are queued rather than applied here, so the UI thread never waits for the
+        // simulation thread to finish a step
+        processTouchEvent(event);
+        wakeUpRunner();
         return true;
     }
 
     private void processTouchEvent(MotionEvent event) {
         int action = event.getActionMasked();
+        // event times are uptimeMillis(), which runs on the same clock as System.nanoTime()
+        long time = event.getEventTime() * NANOS_PER_MILLI;
 
         switch (action) {
             case (MotionEvent.ACTION_DOWN): {
                 // First touch begins
-                pudding.startDragging(event.getX(), event.getY(), event.getPointerId(0));
-                pudding.setMousePos(event.getX(), event.getY(), event.getPointerId(0));
+                touchEventQueue.offer(TouchEventQueue.TOUCH_DOWN, event.getPointerId(0), event.getX(), event.getY(), time);
                 break;
             }
             case (MotionEvent.ACTION_UP): {
                 // all touch ended
-                pudding.stopDragging(event.getPointerId(0));
+                touchEventQueue.offer(TouchEventQueue.TOUCH_UP, event.getPointerId(0), event.getX(), event.getY(), time);
                 break;
             }
             case (MotionEvent.ACTION_POINTER_DOWN): {
                 // an additional touch begins
                 int idx = event.getActionIndex();
-                pudding.startDragging(event.getX(idx), event.getY(idx), event.getPointerId(idx));
-                pudding.setMousePos(event.getX(idx), event.getY(idx), event.getPointerId(idx));
+                touchEventQueue.offer(TouchEventQueue.TOUCH_DOWN, event.getPointerId(idx), event.getX(idx),
+                        event.getY(idx), time);
                 break;
             }
             case (MotionEvent.ACTION_POINTER_UP): {
                 // an additional touch ended
                 int pointerIndex = event.getActionIndex();
-                pudding.stopDragging(event.getPointerId(pointerIndex));
+                touchEventQueue.offer(TouchEventQueue.TOUCH_UP, event.getPointerId(pointerIndex),
+                        event.getX(pointerIndex), event.getY(pointerIndex), time);
                 break;
             }
             case (MotionEvent.ACTION_MOVE): {
-                // a finger has moved across screen
+                // a finger has moved across screen. the event may also carry the samples taken
+                // since the last one, oldest first
+                boolean isHistoryEnabled = touchEventQueue.getIsHistoryEnabled();
+                int historySize = isHistoryEnabled ? event.getHistorySize() : 0;
+                for (int h = 0; h < historySize; h++) {
+                    long historicalTime = event.getHistoricalEventTime(h) * NANOS_PER_MILLI;
+                    for (int i = 0; i < event.getPointerCount(); i++) {
+                        touchEventQueue.offer(TouchEventQueue.TOUCH_MOVE, event.getPointerId(i),
+                                event.getHistoricalX(i, h), event.getHistoricalY(i, h), historicalTime);
+                    }
+                }
                 for (int i = 0; i < event.getPointerCount(); i++) {
                     // save the position of all active pointers
-                    pudding.setMousePos(event.getX(i), event.getY(i), event.getPointerId(i));
+                    touchEventQueue.offer(TouchEventQueue.TOUCH_MOVE, event.getPointerId(i), event.getX(i),
+                            event.getY(i), time);
                 }
                 break;
             }
             case (MotionEvent.ACTION_CANCEL): {
                 // Touch event canceled
-                pudding.stopDragging(event.getPointerId(0));
+                touchEventQueue.offer(TouchEventQueue.TOUCH_UP, event.getPointerId(0), event.getX(), event.getY(), time);
                 break;
             }
             default:
@@ -157,7 +232,33 @@ public class PuddingFacade implements SensorEventListener {
         if (configurator == null) {
             initConfigurator();
         }
-        configurator.applyPrefs(pudding);
+        // prefs can be applied while the simulation thread is running, e.g. from the wallpaper
+        // settings. changing the node count under its feet would break the running step
+        synchronized (pudding) {
+            configurator.applyPrefs(pudding);
+        }
+        configurator.applyPrefs(frameScheduler);
+        configurator.applyPrefs(gravityFilter);
+        configurator.applyPrefs(backgroundImage);
+        configurator.applyPrefs(touchEventQueue);
+        configurator.applyPrefs(frameStats);
+        if (puddingRunner != null) {
+            // the sampling rate or gravity setting may have changed
+            unregisterSensorListener();
+            registerSensorListener();
+        }
+        wakeUpRunner();
+    }
+
+    /**
+     * Make sure the simulation thread isn't sleeping, so it picks up whatever has changed
+     */
+    private void wakeUpRunner() {
+        // the runner only exists while started
+        PuddingRunner runner = puddingRunner;
+        if (runner != null) {
+            runner.wakeUp();
+        }
     }
 
     private void initConfigurator() {
@@ -170,7 +271,13 @@ public class PuddingFacade implements SensorEventListener {
     public void onSensorChanged(SensorEvent event) {
         // need to invert the x value since the sensor and the drawing api has
         // different coordinate system
-        pudding.setGravity(-event.values[0] * GRAVITY_SCALER, event.values[1] * GRAVITY_SCALER);
+        double x = -event.values[0] * GRAVITY_SCALER;
+        double y = event.values[1] * GRAVITY_SCALER;
+        if (gravityFilter.addSample(x, y, event.timestamp)) {
+            // the simulation thread picks it up at the start of its next step
+            gravitySlot.publish((float) gravityFilter.getX(), (float) gravityFilter.getY());
+            wakeUpRunner();
+        }
     }
 
     @Override
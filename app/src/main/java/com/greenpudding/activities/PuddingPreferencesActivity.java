@@ -1,12 +1,19 @@
 package com.greenpudding.activities;
 
+import android.content.Intent;
 import android.os.Bundle;
+import android.preference.Preference;
 import android.preference.PreferenceActivity;
+import android.widget.Toast;
 
 import com.greenpudding.R;
+import com.greenpudding.util.BackgroundImage;
 
 
 public class PuddingPreferencesActivity extends PreferenceActivity {
+
+    private static final int REQUEST_PICK_BACKGROUND_IMAGE = 1;
+
     @Override
     public void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -14,10 +21,39 @@ public class PuddingPreferencesActivity extends PreferenceActivity {
 
         //  populate the pref screen with xml content
         addPreferencesFromResource(R.xml.preferences);
+
+        // let the user pick the background picture from any app that has pictures
+        Preference backgroundImagePref = findPreference(getString(R.string.pref_background_image_key));
+        backgroundImagePref.setOnPreferenceClickListener(new Preference.OnPreferenceClickListener() {
+            @Override
+            public boolean onPreferenceClick(Preference preference) {
+                Intent intent = new Intent(Intent.ACTION_GET_CONTENT);
+                intent.setType("image/*");
+                startActivityForResult(intent, REQUEST_PICK_BACKGROUND_IMAGE);
+                return true;
+            }
+        });
+    }
+
+    @Override
+    protected void onActivityResult(int requestCode, int resultCode, Intent data) {
+        super.onActivityResult(requestCode, resultCode, data);
+        if (requestCode != REQUEST_PICK_BACKGROUND_IMAGE || resultCode != RESULT_OK || data == null
+                || data.getData() == null) {
+            return;
+        }
+        // keep a copy, the permission to read the picked one doesn't last
+        String path = BackgroundImage.importPicture(this, data.getData());
+        if (path == null) {
+            Toast.makeText(this, R.string.background_image_failed, Toast.LENGTH_SHORT).show();
+            return;
+        }
+        getPreferenceManager().getSharedPreferences().edit()
+                .putString(getString(R.string.pref_background_image_key), path).commit();
     }
 
     protected void initSharedPreference() {
         // to be overidden
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,250 @@
+package com.greenpudding.model;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.Rect;
+
+import com.greenpudding.util.OutlineTessellator;
+import com.greenpudding.util.StressPalette;
+
+import java.util.Arrays;
+
+/**
+ * Created by forkburn on 2015-07-17.
+ *
+ * Draws the pudding with the android Canvas api. Set the canvas of the frame before rendering.
+ */
+public class CanvasPuddingRenderer implements PuddingRenderer {
+
+    // pixels around the nodes that anti-aliasing may touch
+    private static final int DRAWN_AREA_MARGIN = 2;
+
+    // the canvas of the current frame
+    private Canvas canvas;
+    // drawn instead of the background color, if any. already the size of the canvas
+    private Bitmap backgroundImage;
+    // drawn over the top left corner, if any
+    private Bitmap overlay;
+
+    // the points generated by interpolation, used as start/ending point when
+    // drawing curves, as {x0, y0, x1, y1, ...}
+    private float[] midpoints = new float[0];
+
+    // approximates the outline with straight lines in mesh mode
+    private OutlineTessellator tessellator = new OutlineTessellator();
+    // the triangle fan filling the outline in mesh mode: the center, then the outline, closed
+    private float[] meshVertices = new float[0];
+
+
+    // the path used for drawing the border line
+    private Path path;
+    // the paint used for specifying the fill color
+    private Paint solidColorPaint;
+    private Paint strokePaint;
+
+    // the stroke color for each level of stress in wireframe mode
+    private StressPalette stressPalette = new StressPalette();
+    // the lines of all springs, as {x0, y0, x1, y1, ...}, grouped by stress level
+    private float[] linePoints = new float[0];
+    // the stress level of each spring
+    private int[] springLevels = new int[0];
+    // the lines of level l are at [levelStart[l], levelStart[l + 1]) in linePoints, counting lines
+    private int[] levelStart = new int[StressPalette.NUM_COLORS + 1];
+    // where the next line of each level goes, while filling linePoints
+    private int[] levelNext = new int[StressPalette.NUM_COLORS];
+
+    public CanvasPuddingRenderer() {
+        path = new Path();
+        path.setFillType(Path.FillType.WINDING);
+
+        solidColorPaint = new Paint();
+        solidColorPaint.setStyle(Paint.Style.FILL);
+        solidColorPaint.setAntiAlias(true);
+
+        strokePaint = new Paint();
+        strokePaint.setStyle(Paint.Style.STROKE);
+        strokePaint.setAntiAlias(true);
+
+    }
+
+    /**
+     * @param canvas the canvas to draw the next frame on
+     */
+    public void setCanvas(Canvas canvas) {
+        this.canvas = canvas;
+    }
+
+    /**
+     * @param backgroundImage the picture to draw behind the pudding, the size of the canvas, or
+     *                        null for the background color
+     */
+    public void setBackgroundImage(Bitmap backgroundImage) {
+        this.backgroundImage = backgroundImage;
+    }
+
+    /**
+     * @param overlay a picture to draw over the top left corner, e.g. debug info, or null
+     */
+    public void setOverlay(Bitmap overlay) {
+        this.overlay = overlay;
+    }
+
+    /**
+     * Find the area of the canvas the pudding will be drawn in. Every mode draws within the
+     * bounding box of the nodes: the outline curves stay inside it and the springs connect nodes
+     *
+     * @param frame
+     * @param area  where to save the area
+     */
+    public void getDrawnArea(PuddingFrame frame, Rect area) {
+        double[] x = frame.getX();
+        double[] y = frame.getY();
+        double left = Double.MAX_VALUE;
+        double top = Double.MAX_VALUE;
+        double right = -Double.MAX_VALUE;
+        double bottom = -Double.MAX_VALUE;
+        for (int i = 0; i < frame.getNumNodes(); i++) {
+            left = Math.min(left, x[i]);
+            top = Math.min(top, y[i]);
+            right = Math.max(right, x[i]);
+            bottom = Math.max(bottom, y[i]);
+        }
+        if (left > right) {
+            // no nodes
+            area.setEmpty();
+            return;
+        }
+        area.set((int) Math.floor(left) - DRAWN_AREA_MARGIN, (int) Math.floor(top) - DRAWN_AREA_MARGIN,
+                (int) Math.ceil(right) + DRAWN_AREA_MARGIN, (int) Math.ceil(bottom) + DRAWN_AREA_MARGIN);
+    }
+
+    @Override
+    public void render(PuddingFrame frame) {
+        int numNodes = frame.getNumNodes();
+        solidColorPaint.setColor(frame.getColor());
+        if (backgroundImage == null || backgroundImage.hasAlpha()) {
+            canvas.drawColor(frame.getBackgroundColor());
+        }
+        if (backgroundImage != null) {
+            // same size, no paint: copied pixel for pixel without filtering
+            canvas.drawBitmap(backgroundImage, 0, 0, null);
+        }
+
+        if (frame.getRenderMode() == RenderMode.NORMAL) {
+            renderNormal(canvas, frame.getX(), frame.getY(), numNodes);
+        } else if (frame.getRenderMode() == RenderMode.MESH) {
+            tessellator.setIsAdaptive(frame.getIsAdaptiveTessellationEnabled());
+            tessellator.setVertexBudget(frame.getTessellationBudget());
+            renderMesh(canvas, frame.getX(), frame.getY(), numNodes);
+        } else if (frame.getRenderMode() == RenderMode.WIREFRAME) {
+            stressPalette.update(frame.getStressColorScheme(), frame.getColor());
+            renderWireframe(canvas, frame.getX(), frame.getY(), frame.getSprings(), frame.getSpringForces());
+        }
+        if (overlay != null) {
+            canvas.drawBitmap(overlay, 0, 0, null);
+        }
+    }
+
+    private void renderNormal(Canvas canvas, double[] x, double[] y, int numNodes) {
+        if (midpoints.length < 2 * numNodes) {
+            midpoints = new float[2 * numNodes];
+        }
+        int last = numNodes - 1;
+        // calculate position of the control points
+        for (int i = 0; i < last; i++) {
+            // put the control point between the 2 nodes
+            midpoints[2 * i] = (float) ((x[i] + x[i + 1]) * 0.5);
+            midpoints[2 * i + 1] = (float) ((y[i] + y[i + 1]) * 0.5);
+        }
+        midpoints[2 * last] = (float) ((x[last] + x[0]) * 0.5);
+        midpoints[2 * last + 1] = (float) ((y[last] + y[0]) * 0.5);
+
+        // draw the border line with a path
+        path.reset();
+        // start at the first point
+        path.moveTo(midpoints[0], midpoints[1]);
+        for (int i = 1; i < numNodes; i++) {
+            path.quadTo((float) x[i], (float) y[i], midpoints[2 * i], midpoints[2 * i + 1]);
+        }
+        path.quadTo((float) x[0], (float) y[0], midpoints[0], midpoints[1]);
+        path.close();
+
+        // draw the path to the canvas
+        canvas.drawPath(path, solidColorPaint);
+    }
+
+    /**
+     * Fill the outline with a fan of triangles around its center. Much cheaper than filling a
+     * path, but without anti-aliasing, and only exact while every point of the outline can be
+     * seen from the center, which holds unless the pudding is badly crumpled
+     */
+    private void renderMesh(Canvas canvas, double[] x, double[] y, int numNodes) {
+        tessellator.tessellate(x, y, numNodes);
+        float[] points = tessellator.getPoints();
+        int numPoints = tessellator.getNumPoints();
+        // the center, the outline, and the first point of the outline again to close it
+        int numFloats = 2 * (numPoints + 2);
+        if (meshVertices.length < numFloats) {
+            meshVertices = new float[numFloats];
+        }
+
+        float centerX = 0;
+        float centerY = 0;
+        for (int i = 0; i < numPoints; i++) {
+            centerX += points[2 * i];
+            centerY += points[2 * i + 1];
+        }
+        meshVertices[0] = centerX / numPoints;
+        meshVertices[1] = centerY / numPoints;
+        System.arraycopy(points, 0, meshVertices, 2, 2 * numPoints);
+        meshVertices[numFloats - 2] = points[0];
+        meshVertices[numFloats - 1] = points[1];
+
+        canvas.drawVertices(Canvas.VertexMode.TRIANGLE_FAN, numFloats, meshVertices, 0, null, 0, null, 0, null, 0,
+                0, solidColorPaint);
+    }
+
+
+    private void renderWireframe(Canvas canvas, double[] x, double[] y, int[] springs, double[] springForces) {
+        int numSprings = springs.length / 2;
+        if (springLevels.length < numSprings) {
+            springLevels = new int[numSprings];
+            linePoints = new float[numSprings * 4];
+        }
+
+        // count the springs of each stress level
+        Arrays.fill(levelStart, 0);
+        for (int s = 0; s < numSprings; s++) {
+            int level = stressPalette.getLevel(springForces[s]);
+            springLevels[s] = level;
+            levelStart[level + 1]++;
+        }
+        for (int l = 0; l < StressPalette.NUM_COLORS; l++) {
+            levelStart[l + 1] += levelStart[l];
+            levelNext[l] = levelStart[l];
+        }
+
+        // for each pair of bound nodes, put a line between them with the others of the same color
+        for (int s = 0; s < numSprings; s++) {
+            int i = springs[2 * s];
+            int j = springs[2 * s + 1];
+            int offset = 4 * levelNext[springLevels[s]]++;
+            linePoints[offset] = (float) x[i];
+            linePoints[offset + 1] = (float) y[i];
+            linePoints[offset + 2] = (float) x[j];
+            linePoints[offset + 3] = (float) y[j];
+        }
+
+        // draw the lines of each color at once
+        for (int l = 0; l < StressPalette.NUM_COLORS; l++) {
+            int numLines = levelStart[l + 1] - levelStart[l];
+            if (numLines > 0) {
+                strokePaint.setColor(stressPalette.getColor(l));
+                canvas.drawLines(linePoints, 4 * levelStart[l], 4 * numLines, strokePaint);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,148 @@
+package com.greenpudding.model;
+
+import android.view.SurfaceHolder;
+
+import javax.microedition.khronos.egl.EGL10;
+import javax.microedition.khronos.egl.EGLConfig;
+import javax.microedition.khronos.egl.EGLContext;
+import javax.microedition.khronos.egl.EGLDisplay;
+import javax.microedition.khronos.egl.EGLSurface;
+
+/**
+ * An OpenGL ES 2.0 context drawing onto a SurfaceHolder. Works with any surface, including
+ * the one of a live wallpaper where GLSurfaceView can't be used. All methods must be called
+ * from the same thread.
+ */
+public class EglWindow {
+
+    // not defined in EGL10
+    private static final int EGL_CONTEXT_CLIENT_VERSION = 0x3098;
+    private static final int EGL_OPENGL_ES2_BIT = 4;
+
+    // preferred: multisampled for smooth edges. the stencil is needed for filling the outline
+    private static final int[] CONFIG_ATTRIBS_MULTISAMPLE = {EGL10.EGL_RED_SIZE, 8, EGL10.EGL_GREEN_SIZE, 8,
+            EGL10.EGL_BLUE_SIZE, 8, EGL10.EGL_STENCIL_SIZE, 8, EGL10.EGL_RENDERABLE_TYPE, EGL_OPENGL_ES2_BIT,
+            EGL10.EGL_SAMPLE_BUFFERS, 1, EGL10.EGL_SAMPLES, 4, EGL10.EGL_NONE};
+    private static final int[] CONFIG_ATTRIBS = {EGL10.EGL_RED_SIZE, 8, EGL10.EGL_GREEN_SIZE, 8,
+            EGL10.EGL_BLUE_SIZE, 8, EGL10.EGL_STENCIL_SIZE, 8, EGL10.EGL_RENDERABLE_TYPE, EGL_OPENGL_ES2_BIT,
+            EGL10.EGL_NONE};
+
+    private EGL10 egl;
+    private EGLDisplay display = EGL10.EGL_NO_DISPLAY;
+    private EGLConfig config;
+    private EGLContext context = EGL10.EGL_NO_CONTEXT;
+    private EGLSurface surface = EGL10.EGL_NO_SURFACE;
+
+    private int[] value = new int[1];
+
+    /**
+     * Make the context current on the surface, creating them first if needed
+     *
+     * @param holder
+     * @return whether there is something to draw on
+     */
+    public boolean makeCurrent(SurfaceHolder holder) {
+        if (context == EGL10.EGL_NO_CONTEXT && !createContext()) {
+            return false;
+        }
+        if (surface == EGL10.EGL_NO_SURFACE) {
+            surface = egl.eglCreateWindowSurface(display, config, holder, null);
+            if (surface == null || surface == EGL10.EGL_NO_SURFACE) {
+                // the surface isn't ready yet, or already gone
+                surface = EGL10.EGL_NO_SURFACE;
+                return false;
+            }
+        }
+        if (!egl.eglMakeCurrent(display, surface, surface, context)) {
+            releaseSurface();
+            return false;
+        }
+        return true;
+    }
+
+    private boolean createContext() {
+        egl = (EGL10) EGLContext.getEGL();
+        display = egl.eglGetDisplay(EGL10.EGL_DEFAULT_DISPLAY);
+        if (display == EGL10.EGL_NO_DISPLAY || !egl.eglInitialize(display, null)) {
+            display = EGL10.EGL_NO_DISPLAY;
+            return false;
+        }
+        config = chooseConfig(CONFIG_ATTRIBS_MULTISAMPLE);
+        if (config == null) {
+            config = chooseConfig(CONFIG_ATTRIBS);
+        }
+        if (config == null) {
+            release();
+            return false;
+        }
+        context = egl.eglCreateContext(display, config, EGL10.EGL_NO_CONTEXT,
+                new int[]{EGL_CONTEXT_CLIENT_VERSION, 2, EGL10.EGL_NONE});
+        if (context == null || context == EGL10.EGL_NO_CONTEXT) {
+            context = EGL10.EGL_NO_CONTEXT;
+            release();
+            return false;
+        }
+        return true;
+    }
+
+    private EGLConfig chooseConfig(int[] attribs) {
+        EGLConfig[] configs = new EGLConfig[1];
+        int[] numConfigs = new int[1];
+        if (!egl.eglChooseConfig(display, attribs, configs, 1, numConfigs) || numConfigs[0] == 0) {
+            return null;
+        }
+        return configs[0];
+    }
+
+    /**
+     * Show what was drawn since the last call
+     *
+     * @return false if the surface is lost. it's recreated on the next makeCurrent()
+     */
+    public boolean swapBuffers() {
+        if (!egl.eglSwapBuffers(display, surface)) {
+            releaseSurface();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return the current width of the surface, in pixels
+     */
+    public int getWidth() {
+        egl.eglQuerySurface(display, surface, EGL10.EGL_WIDTH, value);
+        return value[0];
+    }
+
+    /**
+     * @return the current height of the surface, in pixels
+     */
+    public int getHeight() {
+        egl.eglQuerySurface(display, surface, EGL10.EGL_HEIGHT, value);
+        return value[0];
+    }
+
+    private void releaseSurface() {
+        if (surface != EGL10.EGL_NO_SURFACE) {
+            egl.eglMakeCurrent(display, EGL10.EGL_NO_SURFACE, EGL10.EGL_NO_SURFACE, EGL10.EGL_NO_CONTEXT);
+            egl.eglDestroySurface(display, surface);
+            surface = EGL10.EGL_NO_SURFACE;
+        }
+    }
+
+    /**
+     * Destroy the context and let go of the surface, so it can be drawn on by other means
+     */
+    public void release() {
+        releaseSurface();
+        if (context != EGL10.EGL_NO_CONTEXT) {
+            egl.eglDestroyContext(display, context);
+            context = EGL10.EGL_NO_CONTEXT;
+        }
+        if (display != EGL10.EGL_NO_DISPLAY) {
+            egl.eglTerminate(display);
+            display = EGL10.EGL_NO_DISPLAY;
+        }
+    }
+}
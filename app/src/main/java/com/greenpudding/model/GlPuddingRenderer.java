@@ -0,0 +1,469 @@
+package com.greenpudding.model;
+
+import android.graphics.Bitmap;
+import android.opengl.GLES20;
+import android.opengl.GLUtils;
+import android.view.SurfaceHolder;
+
+import com.greenpudding.util.OutlineTessellator;
+import com.greenpudding.util.StressPalette;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+/**
+ * Draws the pudding with OpenGL ES 2.0. The node positions are uploaded each frame, and the
+ * outline curves are evaluated in the vertex shader. Drawing a frame takes beginFrame(),
+ * render() and endFrame(), all on the same thread.
+ */
+public class GlPuddingRenderer implements PuddingRenderer {
+
+    // per vertex: the previous node, the node, the next node, and how far along the curve
+    private static final int FILL_VERTEX_FLOATS = 7;
+    // per vertex: the position and the color
+    private static final int LINE_VERTEX_FLOATS = 5;
+
+    // the curve of a node runs between the midpoints to its neighbours, with the node as the
+    // control point. the center of the fan has all 3 points in the same place
+    private static final String FILL_VERTEX_SHADER = ""
+            + "uniform vec2 uScale;\n"
+            + "attribute vec2 aPrev;\n"
+            + "attribute vec2 aNode;\n"
+            + "attribute vec2 aNext;\n"
+            + "attribute float aT;\n"
+            + "void main() {\n"
+            + "    vec2 start = (aPrev + aNode) * 0.5;\n"
+            + "    vec2 end = (aNode + aNext) * 0.5;\n"
+            + "    float u = 1.0 - aT;\n"
+            + "    vec2 pos = u * u * start + 2.0 * u * aT * aNode + aT * aT * end;\n"
+            + "    gl_Position = vec4(pos * uScale + vec2(-1.0, 1.0), 0.0, 1.0);\n"
+            + "}\n";
+    private static final String FILL_FRAGMENT_SHADER = ""
+            + "precision mediump float;\n"
+            + "uniform vec4 uColor;\n"
+            + "void main() {\n"
+            + "    gl_FragColor = uColor;\n"
+            + "}\n";
+    private static final String LINE_VERTEX_SHADER = ""
+            + "uniform vec2 uScale;\n"
+            + "attribute vec2 aPos;\n"
+            + "attribute vec3 aColor;\n"
+            + "varying vec3 vColor;\n"
+            + "void main() {\n"
+            + "    vColor = aColor;\n"
+            + "    gl_Position = vec4(aPos * uScale + vec2(-1.0, 1.0), 0.0, 1.0);\n"
+            + "}\n";
+    private static final String LINE_FRAGMENT_SHADER = ""
+            + "precision mediump float;\n"
+            + "varying vec3 vColor;\n"
+            + "void main() {\n"
+            + "    gl_FragColor = vec4(vColor, 1.0);\n"
+            + "}\n";
+
+    // the corners of a picture, as a strip of 2 triangles
+    private static final float[] IMAGE_CORNERS = {0, 0, 1, 0, 0, 1, 1, 1};
+    // the picture covers uArea: left, bottom, width and height in clip coordinates
+    private static final String IMAGE_VERTEX_SHADER = ""
+            + "uniform vec4 uArea;\n"
+            + "attribute vec2 aCorner;\n"
+            + "varying vec2 vTexCoord;\n"
+            + "void main() {\n"
+            + "    vTexCoord = vec2(aCorner.x, 1.0 - aCorner.y);\n"
+            + "    gl_Position = vec4(uArea.xy + aCorner * uArea.zw, 0.0, 1.0);\n"
+            + "}\n";
+    private static final String IMAGE_FRAGMENT_SHADER = ""
+            + "precision mediump float;\n"
+            + "uniform sampler2D uImage;\n"
+            + "varying vec2 vTexCoord;\n"
+            + "void main() {\n"
+            + "    gl_FragColor = texture2D(uImage, vTexCoord);\n"
+            + "}\n";
+
+    private SurfaceHolder surfaceHolder;
+    private EglWindow eglWindow = new EglWindow();
+    // whether the programs and buffer below exist in the current context
+    private boolean isGlReady = false;
+
+    private int fillProgram;
+    private int fillScaleLocation;
+    private int fillColorLocation;
+    private int prevLocation;
+    private int nodeLocation;
+    private int nextLocation;
+    private int tLocation;
+
+    private int lineProgram;
+    private int lineScaleLocation;
+    private int posLocation;
+    private int colorLocation;
+
+    private int imageProgram;
+    private int imageLocation;
+    private int areaLocation;
+    private int cornerLocation;
+    private int imageTexture;
+    // the picture behind the pudding, and the one in imageTexture
+    private Bitmap backgroundImage;
+    private Bitmap uploadedImage;
+    private int overlayTexture;
+    // the picture over the top left corner, and the one in overlayTexture with its version
+    private Bitmap overlay;
+    private int overlayVersion;
+    private Bitmap uploadedOverlay;
+    private int uploadedOverlayVersion;
+
+    private int vertexBuffer;
+    // the vertices of the frame, before and after copying them to native memory
+    private float[] vertices = new float[0];
+    private FloatBuffer vertexData;
+
+    // decides how many segments each outline curve gets, the same as on the canvas. the points
+    // themselves are left to the vertex shader
+    private OutlineTessellator tessellator = new OutlineTessellator();
+
+    // the stroke color for each level of stress in wireframe mode
+    private StressPalette stressPalette = new StressPalette();
+
+    public GlPuddingRenderer(SurfaceHolder holder) {
+        surfaceHolder = holder;
+    }
+
+    /**
+     * @param backgroundImage the picture to draw behind the pudding, the size of the surface, or
+     *                        null for the background color
+     */
+    public void setBackgroundImage(Bitmap backgroundImage) {
+        this.backgroundImage = backgroundImage;
+    }
+
+    /**
+     * @param overlay a picture to draw over the top left corner, e.g. debug info, or null
+     * @param version changes whenever the picture is drawn again, so it's uploaded again
+     */
+    public void setOverlay(Bitmap overlay, int version) {
+        this.overlay = overlay;
+        overlayVersion = version;
+    }
+
+    /**
+     * Get ready to draw a frame
+     *
+     * @return false if there is nothing to draw on right now
+     */
+    public boolean beginFrame() {
+        if (!eglWindow.makeCurrent(surfaceHolder)) {
+            return false;
+        }
+        if (!isGlReady) {
+            createGlObjects();
+        }
+        GLES20.glViewport(0, 0, eglWindow.getWidth(), eglWindow.getHeight());
+        return true;
+    }
+
+    /**
+     * Show the frame drawn since beginFrame()
+     */
+    public void endFrame() {
+        eglWindow.swapBuffers();
+    }
+
+    /**
+     * Destroy everything on the gpu and let go of the surface
+     */
+    public void release() {
+        // the programs, buffer and texture go with the context
+        isGlReady = false;
+        uploadedImage = null;
+        uploadedOverlay = null;
+        eglWindow.release();
+    }
+
+    @Override
+    public void render(PuddingFrame frame) {
+        int background = frame.getBackgroundColor();
+        GLES20.glClearColor(red(background), green(background), blue(background), 1);
+        GLES20.glClear(GLES20.GL_COLOR_BUFFER_BIT | GLES20.GL_STENCIL_BUFFER_BIT);
+        if (backgroundImage != null) {
+            GLES20.glBindTexture(GLES20.GL_TEXTURE_2D, imageTexture);
+            if (uploadedImage != backgroundImage) {
+                // only when the picture has changed
+                GLUtils.texImage2D(GLES20.GL_TEXTURE_2D, 0, backgroundImage, 0);
+                uploadedImage = backgroundImage;
+            }
+            renderImage(backgroundImage, -1, -1, 2, 2);
+        }
+
+        // maps pixels to clip coordinates, with y pointing down like on a canvas
+        float scaleX = 2f / eglWindow.getWidth();
+        float scaleY = -2f / eglWindow.getHeight();
+
+        if (frame.getRenderMode() == RenderMode.WIREFRAME) {
+            stressPalette.update(frame.getStressColorScheme(), frame.getColor());
+            renderWireframe(frame, scaleX, scaleY);
+        } else {
+            // the gpu fills the exact outline cheaply, so there's no need for a lesser mesh mode
+            renderFill(frame, scaleX, scaleY);
+        }
+
+        if (overlay != null) {
+            GLES20.glBindTexture(GLES20.GL_TEXTURE_2D, overlayTexture);
+            if (uploadedOverlay != overlay || uploadedOverlayVersion != overlayVersion) {
+                GLUtils.texImage2D(GLES20.GL_TEXTURE_2D, 0, overlay, 0);
+                uploadedOverlay = overlay;
+                uploadedOverlayVersion = overlayVersion;
+            }
+            float width = overlay.getWidth() * scaleX;
+            float height = overlay.getHeight() * -scaleY;
+            renderImage(overlay, -1, 1 - height, width, height);
+        }
+    }
+
+    /**
+     * Fill the outline with the stencil buffer: a fan of triangles around any point inverts
+     * the stencil an odd number of times exactly inside the outline, however it's shaped. The
+     * same fan then paints where the stencil is set, clearing it on the way
+     */
+    private void renderFill(PuddingFrame frame, float scaleX, float scaleY) {
+        int numNodes = frame.getNumNodes();
+        if (numNodes < 3) {
+            return;
+        }
+        double[] x = frame.getX();
+        double[] y = frame.getY();
+        tessellator.setIsAdaptive(frame.getIsAdaptiveTessellationEnabled());
+        tessellator.setVertexBudget(frame.getTessellationBudget());
+        tessellator.subdivide(x, y, numNodes);
+        int[] segments = tessellator.getSegments();
+        // the center, the start of the first curve, then the segments of all curves
+        int numVertices = 2 + tessellator.getNumSegments();
+        ensureCapacity(numVertices * FILL_VERTEX_FLOATS);
+
+        double centerX = 0;
+        double centerY = 0;
+        for (int i = 0; i < numNodes; i++) {
+            centerX += x[i];
+            centerY += y[i];
+        }
+        int offset = putFillVertex(0, (float) (centerX / numNodes), (float) (centerY / numNodes));
+        offset = putFillVertex(offset, x, y, numNodes - 1, 0, 1, 0);
+        for (int i = 0; i < numNodes; i++) {
+            int previous = (i == 0) ? numNodes - 1 : i - 1;
+            int next = (i == numNodes - 1) ? 0 : i + 1;
+            int count = segments[i];
+            for (int k = 1; k <= count; k++) {
+                offset = putFillVertex(offset, x, y, previous, i, next, (float) k / count);
+            }
+        }
+        uploadVertices(offset);
+
+        GLES20.glUseProgram(fillProgram);
+        GLES20.glUniform2f(fillScaleLocation, scaleX, scaleY);
+        int color = frame.getColor();
+        GLES20.glUniform4f(fillColorLocation, red(color), green(color), blue(color), 1);
+        int stride = FILL_VERTEX_FLOATS * 4;
+        GLES20.glVertexAttribPointer(prevLocation, 2, GLES20.GL_FLOAT, false, stride, 0);
+        GLES20.glVertexAttribPointer(nodeLocation, 2, GLES20.GL_FLOAT, false, stride, 2 * 4);
+        GLES20.glVertexAttribPointer(nextLocation, 2, GLES20.GL_FLOAT, false, stride, 4 * 4);
+        GLES20.glVertexAttribPointer(tLocation, 1, GLES20.GL_FLOAT, false, stride, 6 * 4);
+        GLES20.glEnableVertexAttribArray(prevLocation);
+        GLES20.glEnableVertexAttribArray(nodeLocation);
+        GLES20.glEnableVertexAttribArray(nextLocation);
+        GLES20.glEnableVertexAttribArray(tLocation);
+
+        GLES20.glEnable(GLES20.GL_STENCIL_TEST);
+        // mark the inside
+        GLES20.glColorMask(false, false, false, false);
+        GLES20.glStencilFunc(GLES20.GL_ALWAYS, 0, 0xFF);
+        GLES20.glStencilOp(GLES20.GL_KEEP, GLES20.GL_KEEP, GLES20.GL_INVERT);
+        GLES20.glDrawArrays(GLES20.GL_TRIANGLE_FAN, 0, numVertices);
+        // paint it
+        GLES20.glColorMask(true, true, true, true);
+        GLES20.glStencilFunc(GLES20.GL_NOTEQUAL, 0, 0xFF);
+        GLES20.glStencilOp(GLES20.GL_ZERO, GLES20.GL_ZERO, GLES20.GL_ZERO);
+        GLES20.glDrawArrays(GLES20.GL_TRIANGLE_FAN, 0, numVertices);
+        GLES20.glDisable(GLES20.GL_STENCIL_TEST);
+
+        GLES20.glDisableVertexAttribArray(prevLocation);
+        GLES20.glDisableVertexAttribArray(nodeLocation);
+        GLES20.glDisableVertexAttribArray(nextLocation);
+        GLES20.glDisableVertexAttribArray(tLocation);
+    }
+
+    private int putFillVertex(int offset, float pointX, float pointY) {
+        for (int k = 0; k < 3; k++) {
+            vertices[offset++] = pointX;
+            vertices[offset++] = pointY;
+        }
+        vertices[offset++] = 0;
+        return offset;
+    }
+
+    private int putFillVertex(int offset, double[] x, double[] y, int previous, int node, int next, float t) {
+        vertices[offset++] = (float) x[previous];
+        vertices[offset++] = (float) y[previous];
+        vertices[offset++] = (float) x[node];
+        vertices[offset++] = (float) y[node];
+        vertices[offset++] = (float) x[next];
+        vertices[offset++] = (float) y[next];
+        vertices[offset++] = t;
+        return offset;
+    }
+
+    /**
+     * Draw the picture in the bound texture over an area, given in clip coordinates
+     */
+    private void renderImage(Bitmap image, float left, float bottom, float width, float height) {
+        ensureCapacity(IMAGE_CORNERS.length);
+        System.arraycopy(IMAGE_CORNERS, 0, vertices, 0, IMAGE_CORNERS.length);
+        uploadVertices(IMAGE_CORNERS.length);
+
+        GLES20.glUseProgram(imageProgram);
+        GLES20.glActiveTexture(GLES20.GL_TEXTURE0);
+        GLES20.glUniform1i(imageLocation, 0);
+        GLES20.glUniform4f(areaLocation, left, bottom, width, height);
+        GLES20.glVertexAttribPointer(cornerLocation, 2, GLES20.GL_FLOAT, false, 0, 0);
+        GLES20.glEnableVertexAttribArray(cornerLocation);
+        if (image.hasAlpha()) {
+            // the bitmap comes with premultiplied alpha
+            GLES20.glEnable(GLES20.GL_BLEND);
+            GLES20.glBlendFunc(GLES20.GL_ONE, GLES20.GL_ONE_MINUS_SRC_ALPHA);
+        }
+        GLES20.glDrawArrays(GLES20.GL_TRIANGLE_STRIP, 0, 4);
+        GLES20.glDisable(GLES20.GL_BLEND);
+        GLES20.glDisableVertexAttribArray(cornerLocation);
+    }
+
+    private void renderWireframe(PuddingFrame frame, float scaleX, float scaleY) {
+        int numSprings = frame.getNumSprings();
+        if (numSprings == 0) {
+            return;
+        }
+        double[] x = frame.getX();
+        double[] y = frame.getY();
+        int[] springs = frame.getSprings();
+        double[] springForces = frame.getSpringForces();
+        ensureCapacity(numSprings * 2 * LINE_VERTEX_FLOATS);
+
+        // for each pair of bound nodes, a line between them colored by the stress
+        int offset = 0;
+        for (int s = 0; s < numSprings; s++) {
+            int color = stressPalette.getColor(stressPalette.getLevel(springForces[s]));
+            offset = putLineVertex(offset, x[springs[2 * s]], y[springs[2 * s]], color);
+            offset = putLineVertex(offset, x[springs[2 * s + 1]], y[springs[2 * s + 1]], color);
+        }
+        uploadVertices(offset);
+
+        GLES20.glUseProgram(lineProgram);
+        GLES20.glUniform2f(lineScaleLocation, scaleX, scaleY);
+        int stride = LINE_VERTEX_FLOATS * 4;
+        GLES20.glVertexAttribPointer(posLocation, 2, GLES20.GL_FLOAT, false, stride, 0);
+        GLES20.glVertexAttribPointer(colorLocation, 3, GLES20.GL_FLOAT, false, stride, 2 * 4);
+        GLES20.glEnableVertexAttribArray(posLocation);
+        GLES20.glEnableVertexAttribArray(colorLocation);
+        GLES20.glDrawArrays(GLES20.GL_LINES, 0, numSprings * 2);
+        GLES20.glDisableVertexAttribArray(posLocation);
+        GLES20.glDisableVertexAttribArray(colorLocation);
+    }
+
+    private int putLineVertex(int offset, double pointX, double pointY, int color) {
+        vertices[offset++] = (float) pointX;
+        vertices[offset++] = (float) pointY;
+        vertices[offset++] = red(color);
+        vertices[offset++] = green(color);
+        vertices[offset++] = blue(color);
+        return offset;
+    }
+
+    private void ensureCapacity(int numFloats) {
+        if (vertices.length < numFloats) {
+            vertices = new float[numFloats];
+            vertexData = ByteBuffer.allocateDirect(numFloats * 4).order(ByteOrder.nativeOrder()).asFloatBuffer();
+        }
+    }
+
+    private void uploadVertices(int numFloats) {
+        vertexData.clear();
+        vertexData.put(vertices, 0, numFloats);
+        vertexData.position(0);
+        GLES20.glBindBuffer(GLES20.GL_ARRAY_BUFFER, vertexBuffer);
+        GLES20.glBufferData(GLES20.GL_ARRAY_BUFFER, numFloats * 4, vertexData, GLES20.GL_STREAM_DRAW);
+    }
+
+    private void createGlObjects() {
+        fillProgram = createProgram(FILL_VERTEX_SHADER, FILL_FRAGMENT_SHADER);
+        fillScaleLocation = GLES20.glGetUniformLocation(fillProgram, "uScale");
+        fillColorLocation = GLES20.glGetUniformLocation(fillProgram, "uColor");
+        prevLocation = GLES20.glGetAttribLocation(fillProgram, "aPrev");
+        nodeLocation = GLES20.glGetAttribLocation(fillProgram, "aNode");
+        nextLocation = GLES20.glGetAttribLocation(fillProgram, "aNext");
+        tLocation = GLES20.glGetAttribLocation(fillProgram, "aT");
+
+        lineProgram = createProgram(LINE_VERTEX_SHADER, LINE_FRAGMENT_SHADER);
+        lineScaleLocation = GLES20.glGetUniformLocation(lineProgram, "uScale");
+        posLocation = GLES20.glGetAttribLocation(lineProgram, "aPos");
+        colorLocation = GLES20.glGetAttribLocation(lineProgram, "aColor");
+
+        imageProgram = createProgram(IMAGE_VERTEX_SHADER, IMAGE_FRAGMENT_SHADER);
+        imageLocation = GLES20.glGetUniformLocation(imageProgram, "uImage");
+        areaLocation = GLES20.glGetUniformLocation(imageProgram, "uArea");
+        cornerLocation = GLES20.glGetAttribLocation(imageProgram, "aCorner");
+
+        int[] buffers = new int[1];
+        GLES20.glGenBuffers(1, buffers, 0);
+        vertexBuffer = buffers[0];
+
+        int[] textures = new int[2];
+        GLES20.glGenTextures(2, textures, 0);
+        imageTexture = textures[0];
+        overlayTexture = textures[1];
+        for (int texture : textures) {
+            GLES20.glBindTexture(GLES20.GL_TEXTURE_2D, texture);
+            // the pictures are drawn at their size, so texels map to pixels without filtering
+            GLES20.glTexParameteri(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_MIN_FILTER, GLES20.GL_NEAREST);
+            GLES20.glTexParameteri(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_MAG_FILTER, GLES20.GL_NEAREST);
+            // also lets the size be other than a power of 2
+            GLES20.glTexParameteri(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_WRAP_S, GLES20.GL_CLAMP_TO_EDGE);
+            GLES20.glTexParameteri(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_WRAP_T, GLES20.GL_CLAMP_TO_EDGE);
+        }
+        isGlReady = true;
+    }
+
+    private static int createProgram(String vertexSource, String fragmentSource) {
+        int program = GLES20.glCreateProgram();
+        GLES20.glAttachShader(program, compileShader(GLES20.GL_VERTEX_SHADER, vertexSource));
+        GLES20.glAttachShader(program, compileShader(GLES20.GL_FRAGMENT_SHADER, fragmentSource));
+        GLES20.glLinkProgram(program);
+        int[] status = new int[1];
+        GLES20.glGetProgramiv(program, GLES20.GL_LINK_STATUS, status, 0);
+        if (status[0] == 0) {
+            throw new IllegalStateException("Cannot link program: " + GLES20.glGetProgramInfoLog(program));
+        }
+        return program;
+    }
+
+    private static int compileShader(int type, String source) {
+        int shader = GLES20.glCreateShader(type);
+        GLES20.glShaderSource(shader, source);
+        GLES20.glCompileShader(shader);
+        int[] status = new int[1];
+        GLES20.glGetShaderiv(shader, GLES20.GL_COMPILE_STATUS, status, 0);
+        if (status[0] == 0) {
+            throw new IllegalStateException("Cannot compile shader: " + GLES20.glGetShaderInfoLog(shader));
+        }
+        return shader;
+    }
+
+    private static float red(int color) {
+        return ((color >> 16) & 0xFF) / 255f;
+    }
+
+    private static float green(int color) {
+        return ((color >> 8) & 0xFF) / 255f;
+    }
+
+    private static float blue(int color) {
+        return (color & 0xFF) / 255f;
+    }
+}
@@ -1,152 +0,0 @@
-package com.greenpudding.model;
-
-import android.graphics.Canvas;
-import android.graphics.Color;
-import android.graphics.Paint;
-import android.graphics.Path;
-
-import com.greenpudding.util.UndirectedWeightedGraph;
-
-import java.util.ArrayList;
-import java.util.List;
-
-import javax.vecmath.Vector2d;
-
-/**
- * Created by forkburn on 2015-07-17.
- */
-public class PuddingRenderer {
-
-
-
-    // the points generated by interpolation, used as start/ending point when
-    // drawing curves
-    private List<Vector2d> interpolatedNodes = new ArrayList<>();
-
-
-    // the path used for drawing the border line
-    private Path path;
-    // the paint used for specifying the fill color
-    private Paint solidColorPaint;
-    private Paint strokePaint;
-
-
-    private int backgroundColor = PuddingModel.DEFAULT_BACKGROUND_COLOR;
-    private RenderMode renderMode = RenderMode.NORMAL;
-
-    public PuddingRenderer() {
-        path = new Path();
-        path.setFillType(Path.FillType.WINDING);
-
-        solidColorPaint = new Paint();
-        solidColorPaint.setStyle(Paint.Style.FILL);
-        solidColorPaint.setAntiAlias(true);
-
-        strokePaint = new Paint();
-        strokePaint.setStyle(Paint.Style.STROKE);
-        strokePaint.setAntiAlias(true);
-
-    }
-
-    public void render(Canvas canvas, List<PuddingNode> nodes, UndirectedWeightedGraph stressMap) {
-        canvas.drawColor(backgroundColor);
-
-        if (renderMode == RenderMode.NORMAL) {
-            renderNormal(canvas, nodes);
-        } else if (renderMode == RenderMode.WIREFRAME) {
-            renderWireframe(canvas, nodes, stressMap);
-        }
-    }
-
-    private void renderNormal(Canvas canvas, List<PuddingNode> nodes) {
-        // calculate position of the control points
-        for (int i = 0; i < nodes.size() - 1; i++) {
-            // put the control point between the 2 nodes
-            interpolatedNodes.get(i).interpolate(nodes.get(i).pos, nodes.get(i + 1).pos, 0.5f);
-        }
-        interpolatedNodes.get(nodes.size() - 1).interpolate(nodes.get(nodes.size() - 1).pos, nodes.get(0).pos, 0.5f);
-
-        // draw the border line with a path
-        path.reset();
-        // start at the first point
-        path.moveTo((float) interpolatedNodes.get(0).x, (float) interpolatedNodes.get(0).y);
-        for (int i = 1; i < nodes.size(); i++) {
-            path.quadTo((float) nodes.get(i).pos.x, (float) nodes.get(i).pos.y, (float) interpolatedNodes.get(i).x,
-                    (float) interpolatedNodes.get(i).y);
-        }
-        path.quadTo((float) nodes.get(0).pos.x, (float) nodes.get(0).pos.y, (float) interpolatedNodes.get(0).x,
-                (float) interpolatedNodes.get(0).y);
-        path.close();
-
-        // draw the path to the canvas
-        canvas.drawPath(path, solidColorPaint);
-    }
-
-
-    private void renderWireframe(Canvas canvas, List<PuddingNode> nodes, UndirectedWeightedGraph stressMap) {
-        // for each pair of nodes, draw a line between them
-        for (int i = 0; i < nodes.size() - 1; i++) {
-            for (int j = i + 1; j < nodes.size(); j++) {
-
-                // use the stress between these 2 nodes to determine the color
-                // to render their binding
-                int strokeColorRed = Color.red(solidColorPaint.getColor()) + 50
-                        * Math.abs((int) stressMap.getEdgeWeight(i, j));
-                strokeColorRed = (strokeColorRed > 255) ? 255 : strokeColorRed;
-                strokeColorRed = (strokeColorRed < 0) ? 0 : strokeColorRed;
-
-                int strokeColorGreen = Color.green(solidColorPaint.getColor()) - 10
-                        * Math.abs((int) stressMap.getEdgeWeight(i, j));
-                strokeColorGreen = (strokeColorGreen > 255) ? 255 : strokeColorGreen;
-                strokeColorGreen = (strokeColorGreen < 0) ? 0 : strokeColorGreen;
-
-                int strokeColorBlue = Color.blue(solidColorPaint.getColor()) + 10
-                        * Math.abs((int) stressMap.getEdgeWeight(i, j));
-                strokeColorBlue = (strokeColorGreen > 255) ? 255 : strokeColorBlue;
-                strokeColorBlue = (strokeColorGreen < 0) ? 0 : strokeColorBlue;
-
-                int strokeColor = Color.rgb(strokeColorRed, strokeColorGreen, strokeColorBlue);
-                strokePaint.setColor(strokeColor);
-                canvas.drawLine((float) nodes.get(i).pos.x, (float) nodes.get(i).pos.y, (float) nodes.get(j).pos.x,
-                        (float) nodes.get(j).pos.y, strokePaint);
-            }
-        }
-
-    }
-
-
-    public final void setColor(int color) {
-        solidColorPaint.setColor(color);
-    }
-
-    public int getColor() {
-        return solidColorPaint.getColor();
-    }
-
-    public void setRenderMode(RenderMode mode) {
-        renderMode = mode;
-    }
-
-    public RenderMode getRenderMode() {
-        return renderMode;
-    }
-
-
-    public int getBackgroundColor() {
-        return backgroundColor;
-    }
-
-    public void setBackgroundColor(int backgroundColor) {
-        this.backgroundColor = backgroundColor;
-    }
-
-
-
-    public void setNumNodes(int numNodes) {
-        interpolatedNodes = new ArrayList<>();
-        for (int i = 0; i < numNodes; i++) {
-            interpolatedNodes.add(new Vector2d());
-        }
-    }
-
-}
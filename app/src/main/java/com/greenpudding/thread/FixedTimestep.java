@@ -0,0 +1,87 @@
+package com.greenpudding.thread;
+
+/**
+ * Converts elapsed wall clock time into a whole number of fixed length physics steps, so the
+ * simulation runs at the same speed whatever the frame rate is. The time left over after the
+ * last whole step is exposed as an interpolation factor for rendering.
+ */
+public class FixedTimestep {
+
+    // the rate the physics was tuned for
+    public static final int DEFAULT_STEPS_PER_SECOND = 60;
+    // the most steps taken in one frame. after a long stall, the rest of the time is dropped
+    // rather than letting the simulation spiral trying to catch up
+    public static final int MAX_STEPS_PER_FRAME = 5;
+
+    private static final long NANOS_PER_SECOND = 1000000000L;
+
+    private final long stepDuration;
+
+    // time that has passed but not yet been simulated
+    private long accumulator = 0;
+
+    // when advance() was last called. 0 if the clock has not started
+    private long lastTime = 0;
+    // the number of steps the last call returned
+    private int lastSteps = 0;
+
+    public FixedTimestep() {
+        this(DEFAULT_STEPS_PER_SECOND);
+    }
+
+    public FixedTimestep(int stepsPerSecond) {
+        stepDuration = NANOS_PER_SECOND / stepsPerSecond;
+    }
+
+    /**
+     * Account for the time passed since the last call
+     *
+     * @param now the current time, in nanoseconds
+     * @return the number of physics steps to take
+     */
+    public int advance(long now) {
+        if (lastTime == 0) {
+            // first frame after a (re)start. render what's there and start counting
+            lastTime = now;
+            accumulator = 0;
+            lastSteps = 0;
+            return 0;
+        }
+        accumulator += now - lastTime;
+        lastTime = now;
+
+        int steps = (int) Math.min(accumulator / stepDuration, MAX_STEPS_PER_FRAME);
+        accumulator -= steps * stepDuration;
+        if (steps == MAX_STEPS_PER_FRAME && accumulator > stepDuration) {
+            // fallen too far behind. drop the time we can't simulate
+            accumulator = accumulator % stepDuration;
+        }
+        lastSteps = steps;
+        return steps;
+    }
+
+    /**
+     * @param step one of the steps returned by the last advance(), from 0
+     * @return the time the step simulates up to, in nanoseconds. the last step ends where the
+     * time left over starts
+     */
+    public long getStepTime(int step) {
+        return lastTime - accumulator - (lastSteps - 1 - step) * stepDuration;
+    }
+
+    /**
+     * @return how far between the last step and the next one the current time is, from 0 to 1
+     */
+    public double getInterpolation() {
+        return (double) accumulator / stepDuration;
+    }
+
+    /**
+     * Restart the clock, e.g. after the loop was paused
+     */
+    public void reset() {
+        lastTime = 0;
+        accumulator = 0;
+        lastSteps = 0;
+    }
+}
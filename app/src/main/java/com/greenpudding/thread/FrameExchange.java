@@ -0,0 +1,92 @@
+package com.greenpudding.thread;
+
+import com.greenpudding.model.PuddingFrame;
+
+/**
+ * Double buffer between the simulation thread and the rendering thread. The simulation fills
+ * the back frame while the rendering thread draws the front one, and publishing swaps the two.
+ * A frame published before the previous one was drawn replaces it, so the rendering thread
+ * always draws the latest state.
+ */
+public class FrameExchange {
+
+    // the frame drawn, or about to be drawn, by the rendering thread
+    private PuddingFrame frontFrame = new PuddingFrame();
+    // the frame being filled by the simulation thread
+    private PuddingFrame backFrame = new PuddingFrame();
+    // whether the front frame was published since the rendering thread last took it
+    private boolean hasNewFrame = false;
+    // whether the rendering thread is drawing the front frame
+    private boolean isDrawing = false;
+    private boolean isStopped = false;
+
+    /**
+     * For the simulation thread
+     *
+     * @return the frame to fill in. only valid until the next publish()
+     */
+    public synchronized PuddingFrame getBackFrame() {
+        return backFrame;
+    }
+
+    /**
+     * For the simulation thread: hand the back frame over to the rendering thread. Waits if the
+     * previous frame is still being drawn
+     */
+    public synchronized void publish() {
+        boolean isInterrupted = false;
+        while (isDrawing && !isStopped) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                isInterrupted = true;
+            }
+        }
+        PuddingFrame frame = frontFrame;
+        frontFrame = backFrame;
+        backFrame = frame;
+        hasNewFrame = true;
+        notifyAll();
+        if (isInterrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * For the rendering thread: wait for a frame that hasn't been drawn yet. It must be handed
+     * back with doneDrawing()
+     *
+     * @return the frame to draw, or null once stopped
+     */
+    public synchronized PuddingFrame takeFrame() {
+        while (!hasNewFrame && !isStopped) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                // check the flags again
+            }
+        }
+        if (isStopped) {
+            return null;
+        }
+        hasNewFrame = false;
+        isDrawing = true;
+        return frontFrame;
+    }
+
+    /**
+     * For the rendering thread: the frame from takeFrame() is no longer used
+     */
+    public synchronized void doneDrawing() {
+        isDrawing = false;
+        notifyAll();
+    }
+
+    /**
+     * Release both threads from waiting, and make takeFrame() return null from now on
+     */
+    public synchronized void stop() {
+        isStopped = true;
+        notifyAll();
+    }
+}
@@ -0,0 +1,103 @@
+package com.greenpudding.thread;
+
+/**
+ * Paces the simulation loop to a target frame rate by sleeping away what's left of each frame.
+ * The rendering thread draws whatever the simulation publishes, so it follows the same rate.
+ * In adaptive mode the frame rate follows how lively the pudding is: full rate while it's
+ * dragged or moving fast, lower rates as it settles down.
+ */
+public class FrameScheduler {
+
+    public static final int DEFAULT_TARGET_FPS = 60;
+    public static final boolean DEFAULT_IS_ADAPTIVE = false;
+
+    // frame rates used in adaptive mode
+    public static final int ADAPTIVE_MAX_FPS = 60;
+    public static final int ADAPTIVE_MID_FPS = 30;
+    public static final int ADAPTIVE_MIN_FPS = 15;
+    // node speeds, in pixels per step, above which adaptive mode switches to a higher frame rate
+    public static final double ADAPTIVE_FAST_SPEED = 2;
+    public static final double ADAPTIVE_SLOW_SPEED = 0.5;
+
+    private static final long NANOS_PER_SECOND = 1000000000L;
+
+    // set from the UI thread, read by the simulation thread
+    private volatile int targetFps = DEFAULT_TARGET_FPS;
+    private volatile boolean isAdaptive = DEFAULT_IS_ADAPTIVE;
+
+    // the frame rate picked by adaptive mode for the coming frames
+    private int adaptiveFps = ADAPTIVE_MAX_FPS;
+
+    // when the next frame is due. 0 if no frame has been scheduled yet
+    private long nextFrameTime = 0;
+
+    /**
+     * Let adaptive mode know how lively the pudding is. Should be called on each frame
+     *
+     * @param maxNodeSpeed the speed of the fastest node
+     * @param isDragging   whether the pudding is being dragged by a pointer
+     */
+    public void reportActivity(double maxNodeSpeed, boolean isDragging) {
+        if (isDragging || maxNodeSpeed > ADAPTIVE_FAST_SPEED) {
+            adaptiveFps = ADAPTIVE_MAX_FPS;
+        } else if (maxNodeSpeed > ADAPTIVE_SLOW_SPEED) {
+            adaptiveFps = ADAPTIVE_MID_FPS;
+        } else {
+            adaptiveFps = ADAPTIVE_MIN_FPS;
+        }
+    }
+
+    /**
+     * Sleep until the next frame is due. Should be called once at the end of each frame
+     */
+    public void waitForNextFrame() {
+        long frameDuration = NANOS_PER_SECOND / getCurrentFps();
+        long now = System.nanoTime();
+        if (nextFrameTime == 0) {
+            nextFrameTime = now;
+        }
+        nextFrameTime += frameDuration;
+
+        long remaining = nextFrameTime - now;
+        if (remaining <= 0) {
+            // running behind. don't try to catch up, just schedule from now on
+            nextFrameTime = now;
+            return;
+        }
+        try {
+            Thread.sleep(remaining / 1000000, (int) (remaining % 1000000));
+        } catch (InterruptedException e) {
+            // woken up early. the caller decides whether to carry on
+        }
+    }
+
+    /**
+     * Forget the frame schedule, e.g. after the loop was paused
+     */
+    public void reset() {
+        nextFrameTime = 0;
+    }
+
+    /**
+     * @return the frame rate currently being targeted
+     */
+    public int getCurrentFps() {
+        return isAdaptive ? adaptiveFps : targetFps;
+    }
+
+    public int getTargetFps() {
+        return targetFps;
+    }
+
+    public void setTargetFps(int targetFps) {
+        this.targetFps = Math.max(1, targetFps);
+    }
+
+    public boolean getIsAdaptive() {
+        return isAdaptive;
+    }
+
+    public void setIsAdaptive(boolean isAdaptive) {
+        this.isAdaptive = isAdaptive;
+    }
+}
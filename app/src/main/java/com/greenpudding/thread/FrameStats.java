@@ -0,0 +1,132 @@
+package com.greenpudding.thread;
+
+import com.greenpudding.util.TimingHistogram;
+
+/**
+ * Where the time of the frames goes, as percentiles of each phase over the last frames. The
+ * simulation thread and the rendering thread each time their own phases. Recording doesn't
+ * allocate and costs a couple of clock reads per phase, so it's always on. Read by any thread,
+ * e.g. for the debug overlay or to dump into a report.
+ */
+public class FrameStats {
+
+    // simulation thread: waiting for the pudding lock, e.g. while prefs are applied
+    public static final int PUDDING_LOCK_WAIT = 0;
+    // simulation thread: the physics steps of the frame, touches included
+    public static final int PHYSICS = 1;
+    // simulation thread: copying the pudding into the frame
+    public static final int CAPTURE = 2;
+    // simulation thread: waiting for the rendering thread to finish the previous frame
+    public static final int PUBLISH_WAIT = 3;
+    // rendering thread: waiting for the surface to be ready to draw in
+    public static final int LOCK_SURFACE = 4;
+    // rendering thread: drawing the frame
+    public static final int RENDER = 5;
+    // rendering thread: posting the frame to the display
+    public static final int POST = 6;
+    // rendering thread: from posting one frame to posting the next
+    public static final int FRAME_INTERVAL = 7;
+    // rendering thread: from a touch being sampled to the frame it moved being posted
+    public static final int TOUCH_LATENCY = 8;
+    public static final int NUM_PHASES = 9;
+
+    private static final String[] PHASE_NAMES = {"lock wait", "physics", "capture", "publish wait",
+            "lock surface", "render", "post", "frame", "touch"};
+
+    private final TimingHistogram[] histograms = new TimingHistogram[NUM_PHASES];
+
+    // whether the percentiles are drawn over the pudding
+    private volatile boolean isOverlayEnabled = false;
+
+    public FrameStats() {
+        for (int phase = 0; phase < NUM_PHASES; phase++) {
+            histograms[phase] = new TimingHistogram();
+        }
+    }
+
+    /**
+     * Count how long a phase took in a frame. Each phase must only be recorded by one thread
+     *
+     * @param phase one of the phase constants
+     * @param nanos
+     */
+    public void record(int phase, long nanos) {
+        histograms[phase].record(nanos);
+    }
+
+    public TimingHistogram getHistogram(int phase) {
+        return histograms[phase];
+    }
+
+    public static String getPhaseName(int phase) {
+        return PHASE_NAMES[phase];
+    }
+
+    public void reset() {
+        for (int phase = 0; phase < NUM_PHASES; phase++) {
+            histograms[phase].reset();
+        }
+    }
+
+    /**
+     * Write one line per phase, with its 50th, 95th and 99th percentiles in milliseconds
+     *
+     * @param out
+     */
+    public void dump(StringBuilder out) {
+        for (int phase = 0; phase < NUM_PHASES; phase++) {
+            dumpPhase(phase, out);
+            out.append('\n');
+        }
+    }
+
+    /**
+     * @return the percentiles of all phases, one line per phase
+     */
+    public String dump() {
+        StringBuilder out = new StringBuilder();
+        dump(out);
+        return out.toString();
+    }
+
+    /**
+     * Write the percentiles of one phase, in milliseconds, on one line
+     *
+     * @param phase
+     * @param out
+     */
+    public void dumpPhase(int phase, StringBuilder out) {
+        TimingHistogram histogram = histograms[phase];
+        out.append(PHASE_NAMES[phase]);
+        for (int i = PHASE_NAMES[phase].length(); i < 13; i++) {
+            out.append(' ');
+        }
+        out.append("p50 ");
+        appendMillis(histogram.getPercentile(0.5), out);
+        out.append(" p95 ");
+        appendMillis(histogram.getPercentile(0.95), out);
+        out.append(" p99 ");
+        appendMillis(histogram.getPercentile(0.99), out);
+    }
+
+    private static void appendMillis(long nanos, StringBuilder out) {
+        // with 2 decimals, without formatting which allocates
+        long hundredths = (nanos + 5000) / 10000;
+        out.append(hundredths / 100).append('.');
+        if (hundredths % 100 < 10) {
+            out.append('0');
+        }
+        out.append(hundredths % 100);
+    }
+
+    public boolean getIsOverlayEnabled() {
+        return isOverlayEnabled;
+    }
+
+    /**
+     * @param isOverlayEnabled whether to draw the percentiles over the pudding
+     */
+    public void setIsOverlayEnabled(boolean isOverlayEnabled) {
+        this.isOverlayEnabled = isOverlayEnabled;
+    }
+}
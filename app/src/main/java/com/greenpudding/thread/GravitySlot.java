@@ -0,0 +1,54 @@
+package com.greenpudding.thread;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.vecmath.Vector2d;
+
+/**
+ * Hands the latest gravity over from the sensor thread to the simulation thread without locking.
+ * The slot holds a single value: publishing overwrites whatever hasn't been taken yet, and the
+ * taker always gets the newest value.
+ */
+public class GravitySlot {
+
+    // both halves NaN. a published gravity is never NaN, so this can't be mistaken for one
+    private static final long EMPTY = 0x7FC000007FC00000L;
+
+    // x and y packed as 2 floats into one long, so they're always read and written together
+    private final AtomicLong slot = new AtomicLong(EMPTY);
+
+    /**
+     * Offer a new gravity, replacing any value not taken yet. Can be called from any thread
+     *
+     * @param x
+     * @param y
+     */
+    public void publish(float x, float y) {
+        if (Float.isNaN(x) || Float.isNaN(y)) {
+            return;
+        }
+        slot.set(((long) Float.floatToRawIntBits(x) << 32) | (Float.floatToRawIntBits(y) & 0xFFFFFFFFL));
+    }
+
+    /**
+     * Take the latest gravity out of the slot, if there's one
+     *
+     * @param gravity receives the gravity
+     * @return whether there was a gravity to take
+     */
+    public boolean take(Vector2d gravity) {
+        long value = slot.getAndSet(EMPTY);
+        if (value == EMPTY) {
+            return false;
+        }
+        gravity.set(Float.intBitsToFloat((int) (value >>> 32)), Float.intBitsToFloat((int) value));
+        return true;
+    }
+
+    /**
+     * Drop any value not taken yet
+     */
+    public void clear() {
+        slot.set(EMPTY);
+    }
+}
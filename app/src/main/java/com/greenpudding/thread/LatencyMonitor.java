@@ -0,0 +1,76 @@
+package com.greenpudding.thread;
+
+/**
+ * Measures how long it takes from a touch being sampled to the frame it moved being posted to
+ * the display, as a running average. Written by the rendering thread, read by any.
+ * <p/>
+ * The time the display itself takes to compose and show a posted frame can't be measured from
+ * here, so the actual latency is somewhat longer.
+ */
+public class LatencyMonitor {
+
+    // how much each new measure weighs in the average
+    private static final double SMOOTHING = 0.1;
+    // measures above this are hiccups, like the first frame after a pause, not the usual latency
+    private static final long MAX_LATENCY = 200000000L;
+    // the furthest ahead the pointers are predicted, however slow the frames are
+    private static final long MAX_PREDICTION_HORIZON = 50000000L;
+
+    // all in nanoseconds
+    private volatile long averageLatency = 0;
+    private volatile long lastLatency = 0;
+    private volatile long maxLatency = 0;
+    private volatile int count = 0;
+
+    /**
+     * Count a frame posted after a touch. Must only be called from one thread
+     *
+     * @param latency from the touch being sampled to the frame being posted, in nanoseconds
+     */
+    public void report(long latency) {
+        if (latency < 0 || latency > MAX_LATENCY) {
+            return;
+        }
+        lastLatency = latency;
+        maxLatency = Math.max(maxLatency, latency);
+        averageLatency = (count == 0) ? latency
+                : Math.round(averageLatency + (latency - averageLatency) * SMOOTHING);
+        count = count + 1;
+    }
+
+    /**
+     * Forget the measures, e.g. when the surface changes
+     */
+    public void reset() {
+        averageLatency = 0;
+        lastLatency = 0;
+        maxLatency = 0;
+        count = 0;
+    }
+
+    /**
+     * @return the average latency, in nanoseconds. 0 until measured
+     */
+    public long getAverageLatency() {
+        return averageLatency;
+    }
+
+    /**
+     * @return how far ahead to predict the pointers to make up for the latency, in nanoseconds
+     */
+    public long getPredictionHorizon() {
+        return Math.min(averageLatency, MAX_PREDICTION_HORIZON);
+    }
+
+    public long getLastLatency() {
+        return lastLatency;
+    }
+
+    public long getMaxLatency() {
+        return maxLatency;
+    }
+
+    public int getCount() {
+        return count;
+    }
+}
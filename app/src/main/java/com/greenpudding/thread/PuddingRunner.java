@@ -1,44 +1,156 @@
 package com.greenpudding.thread;
 
-import android.graphics.Canvas;
 import android.view.SurfaceHolder;
 
 import com.greenpudding.model.PuddingModel;
+import com.greenpudding.util.BackgroundImage;
+
+import javax.vecmath.Vector2d;
 
 /**
- * A thread that repeatedly gets the canvas and ask the pudding to render on the
- * canvas.
+ * A thread that repeatedly simulates the pudding and publishes what to draw. The drawing
+ * is done by a RenderRunner on a second thread, so the next frame is simulated while the
+ * last one is drawn. When the pudding comes to rest the thread sleeps until woken up.
  * 
  */
 public class PuddingRunner implements Runnable {
 
 	private SurfaceHolder surfaceHolder;
 	private PuddingModel pudding;
+	// hands the frames over to the rendering thread
+	private FrameExchange frameExchange = new FrameExchange();
+	private FrameScheduler frameScheduler;
+	// where the sensor thread leaves the latest gravity
+	private GravitySlot gravitySlot;
+	private Vector2d gravity = new Vector2d();
+	// where the UI thread leaves the touch events
+	private TouchEventQueue touchEventQueue;
+	// the picture the rendering thread draws behind the pudding
+	private BackgroundImage backgroundImage;
+	// measures the touch latency of the frames drawn, for the pudding to make up for it
+	private LatencyMonitor latencyMonitor;
+	// where the time of the frames goes
+	private FrameStats frameStats = new FrameStats();
+	// physics advances in fixed steps independent of the frame rate
+	private FixedTimestep timestep = new FixedTimestep();
 
 	// flag indicating whether thread should continue to run
-	private boolean stopFlag = false;
+	private volatile boolean stopFlag = false;
+
+	// the thread waits on this while the pudding is at rest
+	private final Object sleepLock = new Object();
+	// set when something may have disturbed the pudding since the input of the frame was taken
+	private boolean wakeUpFlag = false;
 
-	public PuddingRunner(SurfaceHolder holder) {
+	public PuddingRunner(SurfaceHolder holder, FrameScheduler scheduler) {
 		surfaceHolder = holder;
+		frameScheduler = scheduler;
 	}
 
 	@Override
 	public void run() {
+		RenderRunner renderRunner = new RenderRunner(surfaceHolder, frameExchange);
+		renderRunner.setBackgroundImage(backgroundImage);
+		renderRunner.setLatencyMonitor(latencyMonitor);
+		renderRunner.setFrameStats(frameStats);
+		Thread renderThread = new Thread(renderRunner, "PuddingRenderer");
+		renderThread.start();
+		try {
+			simulate();
+		} finally {
+			frameExchange.stop();
+			boolean retry = true;
+			while (retry) {
+				try {
+					renderThread.join();
+					retry = false;
+				} catch (InterruptedException e) {
+				}
+			}
+		}
+	}
+
+	private void simulate() {
+		frameScheduler.reset();
+		timestep.reset();
 		while (!stopFlag) {
-			Canvas canvas = null;
-			try {
-				canvas = surfaceHolder.lockCanvas();
-				if (canvas != null) {
-					synchronized (surfaceHolder) {
-						pudding.updatePhysics();
-						pudding.render(canvas);
+			boolean isAtRest;
+			// the input taken below is what earlier wake ups were about. only the ones coming
+			// after it may keep the thread from sleeping
+			synchronized (sleepLock) {
+				wakeUpFlag = false;
+			}
+			long lockTime = System.nanoTime();
+			// input arrives through lock-free handoffs. the lock only guards against the
+			// rare structural changes, like applying prefs
+			synchronized (pudding) {
+				long physicsTime = System.nanoTime();
+				frameStats.record(FrameStats.PUDDING_LOCK_WAIT, physicsTime - lockTime);
+				if (gravitySlot != null && gravitySlot.take(gravity)) {
+					pudding.setGravity(gravity.x, gravity.y);
+				}
+				if (touchEventQueue != null) {
+					touchEventQueue.drainTo(pudding);
+				}
+				if (latencyMonitor != null) {
+					pudding.setTouchLatency(latencyMonitor.getPredictionHorizon());
+				}
+				int steps = timestep.advance(System.nanoTime());
+				for (int i = 0; i < steps; i++) {
+					// moves are applied once per pointer and step, however many came in
+					if (touchEventQueue != null) {
+						touchEventQueue.applyMoves(pudding, timestep.getStepTime(i));
 					}
+					pudding.updatePhysics();
 				}
-			} finally {
-				if (canvas != null) {
-					surfaceHolder.unlockCanvasAndPost(canvas);
+				long captureTime = System.nanoTime();
+				frameStats.record(FrameStats.PHYSICS, captureTime - physicsTime);
+				// capture the pudding between the last 2 steps according to the time left over
+				pudding.capture(frameExchange.getBackFrame(), timestep.getInterpolation());
+				frameStats.record(FrameStats.CAPTURE, System.nanoTime() - captureTime);
+				frameScheduler.reportActivity(pudding.getMaxNodeSpeed(), pudding.getIsDragging());
+				isAtRest = pudding.getIsAtRest();
+			}
+			// waits if the rendering thread is still drawing the previous frame
+			long publishTime = System.nanoTime();
+			frameExchange.publish();
+			frameStats.record(FrameStats.PUBLISH_WAIT, System.nanoTime() - publishTime);
+			if (isAtRest) {
+				// the last frame drawn stays on screen. nothing to do until disturbed
+				sleepUntilWokenUp();
+			} else {
+				frameScheduler.waitForNextFrame();
+			}
+		}
+	}
+
+	private void sleepUntilWokenUp() {
+		synchronized (sleepLock) {
+			while (!wakeUpFlag && !stopFlag) {
+				try {
+					sleepLock.wait();
+				} catch (InterruptedException e) {
+					// check the flags again
 				}
 			}
+			wakeUpFlag = false;
+		}
+		synchronized (pudding) {
+			pudding.wakeUp();
+		}
+		// the time spent sleeping shouldn't be simulated or make up for missed frames
+		frameScheduler.reset();
+		timestep.reset();
+	}
+
+	/**
+	 * Resume the simulation if it's sleeping, e.g. on a touch, sensor or preference change.
+	 * Can be called from any thread
+	 */
+	public void wakeUp() {
+		synchronized (sleepLock) {
+			wakeUpFlag = true;
+			sleepLock.notifyAll();
 		}
 	}
 
@@ -50,12 +162,34 @@ public class PuddingRunner implements Runnable {
 		this.pudding = pudding;
 	}
 
+	public void setGravitySlot(GravitySlot gravitySlot) {
+		this.gravitySlot = gravitySlot;
+	}
+
+	public void setTouchEventQueue(TouchEventQueue touchEventQueue) {
+		this.touchEventQueue = touchEventQueue;
+	}
+
+	public void setBackgroundImage(BackgroundImage backgroundImage) {
+		this.backgroundImage = backgroundImage;
+	}
+
+	public void setLatencyMonitor(LatencyMonitor latencyMonitor) {
+		this.latencyMonitor = latencyMonitor;
+	}
+
+	public void setFrameStats(FrameStats frameStats) {
+		this.frameStats = frameStats;
+	}
+
 	public void setStopFlag(boolean stopFlag) {
 		this.stopFlag = stopFlag;
+		// make sure a sleeping thread notices
+		wakeUp();
 	}
 
 	public boolean getStopFlag() {
 		return stopFlag;
 	}
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,214 @@
+package com.greenpudding.thread;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Rect;
+import android.view.SurfaceHolder;
+
+import com.greenpudding.model.CanvasPuddingRenderer;
+import com.greenpudding.model.GlPuddingRenderer;
+import com.greenpudding.model.PuddingFrame;
+import com.greenpudding.model.RenderBackend;
+import com.greenpudding.util.BackgroundImage;
+import com.greenpudding.util.FrameStatsOverlay;
+
+/**
+ * A thread that draws the frames published by the simulation onto the surface, as they come.
+ * Runs until the exchange is stopped. Draws with the backend chosen in each frame.
+ * With the canvas, unless disabled, only the area covered by the pudding in the new and the
+ * last frame is redrawn, the rest of the surface keeps what's already there.
+ * Times the phases of drawing each frame.
+ */
+public class RenderRunner implements Runnable {
+
+    private SurfaceHolder surfaceHolder;
+    private FrameExchange frameExchange;
+    // the picture behind the pudding. may be null
+    private BackgroundImage backgroundImage;
+    // told how long touches take to show. may be null
+    private LatencyMonitor latencyMonitor;
+    // the touch time of the last frame reported, so a touch is only counted on its first frame
+    private long lastTouchTime = 0;
+    // where the time of the frames goes
+    private FrameStats frameStats = new FrameStats();
+    // shows frameStats over the pudding when enabled
+    private FrameStatsOverlay frameStatsOverlay = new FrameStatsOverlay();
+    // when the last frame was posted, in nanoseconds. 0 if none yet
+    private long lastPostTime = 0;
+    // draws the pudding on the canvas of each frame
+    private CanvasPuddingRenderer renderer = new CanvasPuddingRenderer();
+    // draws the pudding with OpenGL. only exists while that backend is in use, since it holds
+    // on to the surface
+    private GlPuddingRenderer glRenderer;
+
+    // the area covered by the pudding in the frame being drawn, and in the last one drawn
+    private Rect puddingArea = new Rect();
+    private Rect lastPuddingArea = new Rect();
+    // whether lastPuddingArea holds the only part of the surface that differs from the background
+    private boolean isLastPuddingAreaValid = false;
+    private int lastBackgroundColor;
+    private Bitmap lastBackgroundBitmap;
+    // the area to redraw. the surface may enlarge it
+    private Rect dirtyArea = new Rect();
+
+    public RenderRunner(SurfaceHolder holder, FrameExchange exchange) {
+        surfaceHolder = holder;
+        frameExchange = exchange;
+    }
+
+    public void setBackgroundImage(BackgroundImage backgroundImage) {
+        this.backgroundImage = backgroundImage;
+    }
+
+    public void setLatencyMonitor(LatencyMonitor latencyMonitor) {
+        this.latencyMonitor = latencyMonitor;
+    }
+
+    public void setFrameStats(FrameStats frameStats) {
+        this.frameStats = frameStats;
+    }
+
+    @Override
+    public void run() {
+        try {
+            PuddingFrame frame;
+            while ((frame = frameExchange.takeFrame()) != null) {
+                // decoded here on the first frame after the picture or the surface size changed
+                Bitmap backgroundBitmap = (backgroundImage == null) ? null : backgroundImage.getBitmap();
+                Bitmap overlayBitmap = updateOverlay();
+                if (frame.getRenderBackend() == RenderBackend.OPENGL) {
+                    drawWithGl(frame, backgroundBitmap, overlayBitmap);
+                } else {
+                    // the surface can't be locked while OpenGL is connected to it
+                    releaseGl();
+                    drawWithCanvas(frame, backgroundBitmap, overlayBitmap);
+                }
+            }
+        } finally {
+            // the context belongs to this thread
+            releaseGl();
+        }
+    }
+
+    /**
+     * @return the frame stats to draw over the pudding, or null if disabled
+     */
+    private Bitmap updateOverlay() {
+        if (!frameStats.getIsOverlayEnabled()) {
+            frameStatsOverlay.release();
+            return null;
+        }
+        frameStatsOverlay.update(frameStats, surfaceHolder.getSurfaceFrame().width());
+        return frameStatsOverlay.getBitmap();
+    }
+
+    private void drawWithCanvas(PuddingFrame frame, Bitmap backgroundBitmap, Bitmap overlayBitmap) {
+        // the frame is the simulation's again once handed back
+        long touchTime = frame.getTouchTime();
+        Canvas canvas = null;
+        long postTime = 0;
+        try {
+            renderer.getDrawnArea(frame, puddingArea);
+            if (overlayBitmap != null) {
+                // redrawn along with the pudding, and cleared with it once disabled
+                puddingArea.union(0, 0, overlayBitmap.getWidth(), overlayBitmap.getHeight());
+            }
+            boolean isPartial = frame.getIsDirtyRectEnabled() && isLastPuddingAreaValid
+                    && frame.getBackgroundColor() == lastBackgroundColor && backgroundBitmap == lastBackgroundBitmap;
+            long lockTime = System.nanoTime();
+            if (isPartial) {
+                // clear where the pudding was, draw where it is
+                dirtyArea.set(puddingArea);
+                dirtyArea.union(lastPuddingArea);
+                canvas = surfaceHolder.lockCanvas(dirtyArea);
+            } else {
+                canvas = surfaceHolder.lockCanvas();
+            }
+            long renderTime = System.nanoTime();
+            frameStats.record(FrameStats.LOCK_SURFACE, renderTime - lockTime);
+            if (canvas != null) {
+                renderer.setCanvas(canvas);
+                renderer.setBackgroundImage(backgroundBitmap);
+                renderer.setOverlay(overlayBitmap);
+                renderer.render(frame);
+                postTime = System.nanoTime();
+                frameStats.record(FrameStats.RENDER, postTime - renderTime);
+                lastPuddingArea.set(puddingArea);
+                lastBackgroundColor = frame.getBackgroundColor();
+                lastBackgroundBitmap = backgroundBitmap;
+            }
+            isLastPuddingAreaValid = (canvas != null);
+        } finally {
+            // the frame is on the canvas, the simulation can have it back before posting
+            frameExchange.doneDrawing();
+            if (canvas != null) {
+                surfaceHolder.unlockCanvasAndPost(canvas);
+                reportPost(postTime, touchTime);
+            }
+        }
+    }
+
+    private void drawWithGl(PuddingFrame frame, Bitmap backgroundBitmap, Bitmap overlayBitmap) {
+        // whatever the canvas left on the surface is gone
+        isLastPuddingAreaValid = false;
+        if (glRenderer == null) {
+            glRenderer = new GlPuddingRenderer(surfaceHolder);
+        }
+        long touchTime = frame.getTouchTime();
+        boolean isDrawn = false;
+        long postTime = 0;
+        try {
+            long lockTime = System.nanoTime();
+            boolean isReady = glRenderer.beginFrame();
+            long renderTime = System.nanoTime();
+            frameStats.record(FrameStats.LOCK_SURFACE, renderTime - lockTime);
+            if (isReady) {
+                glRenderer.setBackgroundImage(backgroundBitmap);
+                glRenderer.setOverlay(overlayBitmap, frameStatsOverlay.getVersion());
+                glRenderer.render(frame);
+                isDrawn = true;
+                postTime = System.nanoTime();
+                frameStats.record(FrameStats.RENDER, postTime - renderTime);
+            }
+        } finally {
+            // the vertices are uploaded, the simulation can have the frame back before swapping
+            frameExchange.doneDrawing();
+        }
+        if (isDrawn) {
+            glRenderer.endFrame();
+            reportPost(postTime, touchTime);
+        }
+    }
+
+    /**
+     * Count a frame just posted to the display
+     *
+     * @param postTime  when posting started, or 0 if drawing failed
+     * @param touchTime when the latest touch the frame responds to was sampled
+     */
+    private void reportPost(long postTime, long touchTime) {
+        if (postTime == 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        frameStats.record(FrameStats.POST, now - postTime);
+        if (lastPostTime != 0) {
+            frameStats.record(FrameStats.FRAME_INTERVAL, now - lastPostTime);
+        }
+        lastPostTime = now;
+        if (touchTime != 0 && touchTime != lastTouchTime) {
+            frameStats.record(FrameStats.TOUCH_LATENCY, now - touchTime);
+            if (latencyMonitor != null) {
+                latencyMonitor.report(now - touchTime);
+            }
+            lastTouchTime = touchTime;
+        }
+    }
+
+    private void releaseGl() {
+        if (glRenderer != null) {
+            glRenderer.release();
+            glRenderer = null;
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package com.greenpudding.thread;
+
+import com.greenpudding.model.PuddingModel;
+import com.greenpudding.model.dragging.DraggingManager;
+
+/**
+ * Passes touch events from the UI thread to the simulation thread without locking. A ring buffer
+ * with exactly one producer (the UI thread) and one consumer (the simulation thread), storing the
+ * events in primitive arrays so queueing doesn't allocate.
+ * <p/>
+ * Moves aren't applied one by one. The consumer drains them into a few samples per pointer and
+ * then sets each pointer once per physics step: at its latest position, or, with the history
+ * enabled, where it was at the time the step simulates, interpolated between the samples.
+ * The pointers are given the times of their positions, so the pudding can predict where they
+ * go next.
+ */
+public class TouchEventQueue {
+
+    public static final int TOUCH_DOWN = 0;
+    public static final int TOUCH_MOVE = 1;
+    public static final int TOUCH_UP = 2;
+
+    // must be a power of 2
+    public static final int CAPACITY = 512;
+    // moves are dropped once the queue is this full, to keep room for downs and ups which must
+    // not get lost
+    private static final int MOVE_LIMIT = CAPACITY * 3 / 4;
+    private static final int MASK = CAPACITY - 1;
+
+    // the samples kept per pointer between physics steps, when the history is enabled. the
+    // oldest go first when there are more
+    private static final int MAX_SAMPLES = 16;
+    private static final int MAX_POINTERS = DraggingManager.MAX_POINTERS;
+
+    private final int[] types = new int[CAPACITY];
+    private final int[] pointerIds = new int[CAPACITY];
+    private final float[] xs = new float[CAPACITY];
+    private final float[] ys = new float[CAPACITY];
+    private final long[] times = new long[CAPACITY];
+
+    // total number of events written and read. only the producer writes writeCount, only the
+    // consumer writes readCount. being volatile, they also publish the array slots
+    private volatile int writeCount = 0;
+    private volatile int readCount = 0;
+
+    // whether the producer queues every sample of a move, or only the latest
+    private volatile boolean isHistoryEnabled = false;
+
+    // the moves of each pointer drained but not yet applied, oldest first, at
+    // [pointerId * MAX_SAMPLES, pointerId * MAX_SAMPLES + numSamples[pointerId]). consumer only
+    private final long[] sampleTimes = new long[MAX_POINTERS * MAX_SAMPLES];
+    private final float[] sampleXs = new float[MAX_POINTERS * MAX_SAMPLES];
+    private final float[] sampleYs = new float[MAX_POINTERS * MAX_SAMPLES];
+    private final int[] numSamples = new int[MAX_POINTERS];
+    // where each pointer was last set, to interpolate from
+    private final long[] lastTimes = new long[MAX_POINTERS];
+    private final float[] lastXs = new float[MAX_POINTERS];
+    private final float[] lastYs = new float[MAX_POINTERS];
+
+    /**
+     * Queue an event. Must only be called from the producer thread
+     *
+     * @param type      TOUCH_DOWN, TOUCH_MOVE or TOUCH_UP
+     * @param pointerId
+     * @param x
+     * @param y
+     * @param time      when it happened, in nanoseconds on the System.nanoTime() clock
+     * @return false if the queue was too full and the event was dropped
+     */
+    public boolean offer(int type, int pointerId, float x, float y, long time) {
+        int size = writeCount - readCount;
+        if (size >= CAPACITY || (type == TOUCH_MOVE && size >= MOVE_LIMIT)) {
+            return false;
+        }
+        int index = writeCount & MASK;
+        types[index] = type;
+        pointerIds[index] = pointerId;
+        xs[index] = x;
+        ys[index] = y;
+        times[index] = time;
+        writeCount = writeCount + 1;
+        return true;
+    }
+
+    /**
+     * Apply the queued downs and ups to the pudding, and keep the moves for applyMoves(). Must
+     * only be called from the consumer thread
+     *
+     * @param pudding
+     */
+    public void drainTo(PuddingModel pudding) {
+        int end = writeCount;
+        int read = readCount;
+        while (read != end) {
+            int index = read & MASK;
+            int pointerId = pointerIds[index];
+            switch (types[index]) {
+                case TOUCH_DOWN:
+                    pudding.startDragging(xs[index], ys[index], pointerId);
+                    pudding.setMousePos(xs[index], ys[index], pointerId, times[index]);
+                    if (isValidId(pointerId)) {
+                        // moves of an earlier touch with this id are of no use anymore
+                        numSamples[pointerId] = 0;
+                        lastTimes[pointerId] = times[index];
+                        lastXs[pointerId] = xs[index];
+                        lastYs[pointerId] = ys[index];
+                    }
+                    break;
+                case TOUCH_MOVE:
+                    if (isValidId(pointerId)) {
+                        addSample(pointerId, times[index], xs[index], ys[index]);
+                    }
+                    break;
+                case TOUCH_UP:
+                    pudding.stopDragging(pointerId);
+                    if (isValidId(pointerId)) {
+                        numSamples[pointerId] = 0;
+                    }
+                    break;
+                default:
+            }
+            read++;
+        }
+        readCount = read;
+    }
+
+    private void addSample(int pointerId, long time, float x, float y) {
+        int start = pointerId * MAX_SAMPLES;
+        int count = numSamples[pointerId];
+        if (!isHistoryEnabled) {
+            // only the latest matters
+            count = 0;
+        } else if (count == MAX_SAMPLES) {
+            System.arraycopy(sampleTimes, start + 1, sampleTimes, start, MAX_SAMPLES - 1);
+            System.arraycopy(sampleXs, start + 1, sampleXs, start, MAX_SAMPLES - 1);
+            System.arraycopy(sampleYs, start + 1, sampleYs, start, MAX_SAMPLES - 1);
+            count--;
+        }
+        sampleTimes[start + count] = time;
+        sampleXs[start + count] = x;
+        sampleYs[start + count] = y;
+        numSamples[pointerId] = count + 1;
+    }
+
+    /**
+     * Move each pointer that has moved to where it was at the given time, as far as the drained
+     * samples tell, or to its latest position if the history is disabled, then predict where
+     * the pointers pull the pudding. Must only be called from the consumer thread, before each
+     * physics step
+     *
+     * @param pudding
+     * @param time    the time the next physics step simulates up to, in nanoseconds
+     */
+    public void applyMoves(PuddingModel pudding, long time) {
+        for (int pointerId = 0; pointerId < MAX_POINTERS; pointerId++) {
+            int count = numSamples[pointerId];
+            if (count == 0) {
+                continue;
+            }
+            int start = pointerId * MAX_SAMPLES;
+            // the samples up to the time are used up. the newest of them is where we start from
+            int used = 0;
+            while (used < count && sampleTimes[start + used] <= time) {
+                used++;
+            }
+            if (used == count || !isHistoryEnabled) {
+                // the time is past all samples
+                used = count;
+                setPointer(pudding, pointerId, sampleTimes[start + count - 1], sampleXs[start + count - 1],
+                        sampleYs[start + count - 1]);
+            } else {
+                if (used > 0) {
+                    lastTimes[pointerId] = sampleTimes[start + used - 1];
+                    lastXs[pointerId] = sampleXs[start + used - 1];
+                    lastYs[pointerId] = sampleYs[start + used - 1];
+                }
+                // between where it was last set and the next sample
+                int next = start + used;
+                long span = sampleTimes[next] - lastTimes[pointerId];
+                float fraction = (span <= 0) ? 1 : Math.max(0, (float) (time - lastTimes[pointerId]) / span);
+                float x = lastXs[pointerId] + (sampleXs[next] - lastXs[pointerId]) * fraction;
+                float y = lastYs[pointerId] + (sampleYs[next] - lastYs[pointerId]) * fraction;
+                pudding.setMousePos(x, y, pointerId, time);
+                // the interpolated position isn't a sample, the next step starts from the same one
+            }
+            if (used > 0) {
+                System.arraycopy(sampleTimes, start + used, sampleTimes, start, count - used);
+                System.arraycopy(sampleXs, start + used, sampleXs, start, count - used);
+                System.arraycopy(sampleYs, start + used, sampleYs, start, count - used);
+                numSamples[pointerId] = count - used;
+            }
+        }
+        pudding.predictPointers(time);
+    }
+
+    private void setPointer(PuddingModel pudding, int pointerId, long time, float x, float y) {
+        pudding.setMousePos(x, y, pointerId, time);
+        lastTimes[pointerId] = time;
+        lastXs[pointerId] = x;
+        lastYs[pointerId] = y;
+    }
+
+    private static boolean isValidId(int pointerId) {
+        return pointerId >= 0 && pointerId < MAX_POINTERS;
+    }
+
+    /**
+     * Drop all queued events. Must only be called from the consumer thread, or while there is none
+     */
+    public void clear() {
+        readCount = writeCount;
+        for (int pointerId = 0; pointerId < MAX_POINTERS; pointerId++) {
+            numSamples[pointerId] = 0;
+        }
+    }
+
+    public boolean getIsHistoryEnabled() {
+        return isHistoryEnabled;
+    }
+
+    /**
+     * @param isHistoryEnabled whether to queue the samples a move event carries from before
+     *                         its latest one, for the physics steps in between
+     */
+    public void setIsHistoryEnabled(boolean isHistoryEnabled) {
+        this.isHistoryEnabled = isHistoryEnabled;
+    }
+}
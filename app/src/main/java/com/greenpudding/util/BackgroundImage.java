@@ -0,0 +1,201 @@
+package com.greenpudding.util;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.net.Uri;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * A picture shown behind the pudding. It's decoded once, at the size of the surface, so
+ * drawing it on each frame is a plain copy of pixels. The picture and the size can be set from
+ * any thread; the bitmap is prepared by the thread asking for it, when either has changed.
+ */
+public class BackgroundImage {
+
+    // the private copies of the picked pictures are named after this
+    private static final String FILE_PREFIX = "background_";
+
+    // the picture file, or null for none
+    private String path;
+    // the size of the surface
+    private int width = 0;
+    private int height = 0;
+    // set when the picture or the size changed since the bitmap was prepared
+    private boolean isStale = false;
+
+    // only touched by the thread calling getBitmap()
+    private Bitmap bitmap;
+
+    /**
+     * @param path the picture file, or null to show the background color
+     */
+    public synchronized void setPath(String path) {
+        if (path == null ? this.path != null : !path.equals(this.path)) {
+            this.path = path;
+            isStale = true;
+        }
+    }
+
+    public synchronized String getPath() {
+        return path;
+    }
+
+    /**
+     * Set the size of the surface the picture is drawn on
+     *
+     * @param width
+     * @param height
+     */
+    public synchronized void setSize(int width, int height) {
+        if (width != this.width || height != this.height) {
+            this.width = width;
+            this.height = height;
+            isStale = true;
+        }
+    }
+
+    /**
+     * Get the picture to draw at the top left corner of the surface, preparing it first if the
+     * picture or the size has changed. Preparing takes a while, so only the rendering thread
+     * should call this
+     *
+     * @return the picture, exactly the size of the surface, or null if there is none
+     */
+    public Bitmap getBitmap() {
+        String path;
+        int width;
+        int height;
+        synchronized (this) {
+            if (!isStale) {
+                return bitmap;
+            }
+            isStale = false;
+            path = this.path;
+            width = this.width;
+            height = this.height;
+        }
+        if (bitmap != null) {
+            bitmap.recycle();
+            bitmap = null;
+        }
+        if (path != null && width > 0 && height > 0) {
+            bitmap = prepare(path, width, height);
+        }
+        return bitmap;
+    }
+
+    private static Bitmap prepare(String path, int width, int height) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeFile(path, options);
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            // gone, or not a picture
+            return null;
+        }
+        // skip the pixels that would be scaled away anyway, but keep at least enough to cover
+        // the surface
+        int sampleSize = 1;
+        while (options.outWidth / (sampleSize * 2) >= width && options.outHeight / (sampleSize * 2) >= height) {
+            sampleSize *= 2;
+        }
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = sampleSize;
+        // the surface has 16 bit pixels unless asked otherwise. pictures with transparency are
+        // decoded with 32 bits regardless
+        options.inPreferredConfig = Bitmap.Config.RGB_565;
+        options.inDither = true;
+
+        Bitmap decoded;
+        try {
+            decoded = BitmapFactory.decodeFile(path, options);
+        } catch (OutOfMemoryError e) {
+            return null;
+        }
+        if (decoded == null) {
+            return null;
+        }
+        try {
+            // cover the whole surface, cropping what sticks out on either side
+            float scale = Math.max((float) width / decoded.getWidth(), (float) height / decoded.getHeight());
+            int cropWidth = Math.min(decoded.getWidth(), Math.round(width / scale));
+            int cropHeight = Math.min(decoded.getHeight(), Math.round(height / scale));
+            int left = (decoded.getWidth() - cropWidth) / 2;
+            int top = (decoded.getHeight() - cropHeight) / 2;
+
+            Bitmap.Config config = decoded.hasAlpha() ? Bitmap.Config.ARGB_8888 : Bitmap.Config.RGB_565;
+            Bitmap result = Bitmap.createBitmap(width, height, config);
+            // filtered once here, so it doesn't need to be on every frame
+            new Canvas(result).drawBitmap(decoded, new Rect(left, top, left + cropWidth, top + cropHeight),
+                    new Rect(0, 0, width, height), new Paint(Paint.FILTER_BITMAP_FLAG | Paint.DITHER_FLAG));
+            return result;
+        } catch (OutOfMemoryError e) {
+            return null;
+        } finally {
+            decoded.recycle();
+        }
+    }
+
+    /**
+     * Copy a picture into the private storage of the app, so it stays readable after whoever
+     * provided it has gone. Replaces the copies made before
+     *
+     * @param context
+     * @param uri     the picture
+     * @return the path of the copy, or null if the picture can't be read
+     */
+    public static String importPicture(Context context, Uri uri) {
+        File dir = context.getFilesDir();
+        // a new name each time, so the change of path tells the picture has changed
+        File file = new File(dir, FILE_PREFIX + System.currentTimeMillis());
+        InputStream in = null;
+        OutputStream out = null;
+        try {
+            in = context.getContentResolver().openInputStream(uri);
+            if (in == null) {
+                return null;
+            }
+            out = new FileOutputStream(file);
+            byte[] buffer = new byte[8192];
+            int count;
+            while ((count = in.read(buffer)) != -1) {
+                out.write(buffer, 0, count);
+            }
+        } catch (IOException e) {
+            file.delete();
+            return null;
+        } finally {
+            close(in);
+            close(out);
+        }
+
+        File[] oldFiles = dir.listFiles();
+        if (oldFiles != null) {
+            for (File oldFile : oldFiles) {
+                if (oldFile.getName().startsWith(FILE_PREFIX) && !oldFile.equals(file)) {
+                    oldFile.delete();
+                }
+            }
+        }
+        return file.getAbsolutePath();
+    }
+
+    private static void close(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                // nothing to do
+            }
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.greenpudding.util;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Typeface;
+
+import com.greenpudding.thread.FrameStats;
+
+/**
+ * The frame timing percentiles as a picture, drawn over the top left corner of the pudding.
+ * Only redrawn every few frames, so the numbers can be read, and without allocating once the
+ * bitmap exists. Only for the rendering thread.
+ */
+public class FrameStatsOverlay {
+
+    // frames between redrawing the numbers
+    private static final int UPDATE_INTERVAL = 30;
+    // characters per line, with the longest phase name
+    private static final int LINE_LENGTH = 44;
+    private static final int BACKGROUND_COLOR = Color.argb(160, 0, 0, 0);
+
+    private Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private Bitmap bitmap;
+    private Canvas canvas;
+    private int surfaceWidth = 0;
+    private int framesUntilUpdate = 0;
+    // counts the redraws, so the bitmap can be uploaded again when it changed
+    private int version = 0;
+
+    private StringBuilder line = new StringBuilder(LINE_LENGTH);
+    private char[] chars = new char[LINE_LENGTH];
+
+    public FrameStatsOverlay() {
+        paint.setColor(Color.WHITE);
+        paint.setTypeface(Typeface.MONOSPACE);
+    }
+
+    /**
+     * Count a frame, and redraw the numbers when it's time
+     *
+     * @param stats
+     * @param surfaceWidth the width of the surface the overlay is drawn on
+     */
+    public void update(FrameStats stats, int surfaceWidth) {
+        if (surfaceWidth != this.surfaceWidth) {
+            createBitmap(surfaceWidth);
+            framesUntilUpdate = 0;
+        }
+        if (framesUntilUpdate-- > 0) {
+            return;
+        }
+        framesUntilUpdate = UPDATE_INTERVAL;
+
+        bitmap.eraseColor(BACKGROUND_COLOR);
+        float lineHeight = bitmap.getHeight() / (float) FrameStats.NUM_PHASES;
+        for (int phase = 0; phase < FrameStats.NUM_PHASES; phase++) {
+            line.setLength(0);
+            stats.dumpPhase(phase, line);
+            int length = Math.min(line.length(), chars.length);
+            line.getChars(0, length, chars, 0);
+            canvas.drawText(chars, 0, length, lineHeight * 0.2f, lineHeight * (phase + 0.8f), paint);
+        }
+        version++;
+    }
+
+    private void createBitmap(int surfaceWidth) {
+        this.surfaceWidth = surfaceWidth;
+        // monospaced characters are about 0.6 of the text size wide
+        float textSize = Math.max(8, surfaceWidth * 0.9f / (LINE_LENGTH * 0.6f));
+        paint.setTextSize(textSize);
+        int width = Math.max(1, Math.min(surfaceWidth, (int) (textSize * (LINE_LENGTH * 0.6f + 0.4f))));
+        int height = (int) Math.ceil(textSize * 1.2f * FrameStats.NUM_PHASES);
+        if (bitmap != null) {
+            bitmap.recycle();
+        }
+        bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        canvas = new Canvas(bitmap);
+    }
+
+    /**
+     * @return the numbers, to draw at the top left corner of the surface. null before the first
+     * update
+     */
+    public Bitmap getBitmap() {
+        return bitmap;
+    }
+
+    /**
+     * @return a number that changes every time the bitmap is redrawn
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Let go of the bitmap, when the overlay is turned off
+     */
+    public void release() {
+        if (bitmap != null) {
+            bitmap.recycle();
+            bitmap = null;
+            canvas = null;
+        }
+        surfaceWidth = 0;
+    }
+}
@@ -0,0 +1,137 @@
+package com.greenpudding.util;
+
+/**
+ * Turns raw accelerometer samples into a steady gravity. Samples arriving faster than the
+ * sampling rate are dropped, the rest go through a low pass filter, and the result only counts
+ * as a change once it has moved further than the dead band from the last gravity reported.
+ */
+public class GravityFilter {
+
+    public static final int DEFAULT_SAMPLING_RATE = 15;
+    // time constant of the low pass filter, in seconds. higher is smoother but slower to react
+    public static final double DEFAULT_SMOOTHING_TIME = 0.15;
+    // changes smaller than this on both axes are ignored
+    public static final double DEFAULT_DEAD_BAND = 0.05;
+
+    private static final double NANOS_PER_SECOND = 1e9;
+    // how early in its period a sample may arrive and still be taken. the sensor is registered
+    // with the same period and delivers around it with some jitter
+    private static final double EARLY_FRACTION = 0.25;
+
+    // samples per second
+    private int samplingRate = DEFAULT_SAMPLING_RATE;
+    private double smoothingTime = DEFAULT_SMOOTHING_TIME;
+    private double deadBand = DEFAULT_DEAD_BAND;
+
+    // the filtered gravity
+    private double filteredX;
+    private double filteredY;
+    // the gravity last reported as changed
+    private double reportedX;
+    private double reportedY;
+    // timestamp of the last sample accepted. 0 if none yet
+    private long lastTimestamp = 0;
+    // when the next sample is due. advances by exactly one period per sample taken, so early and
+    // late samples even out and the rate holds
+    private long nextTimestamp = 0;
+
+    /**
+     * Feed a sample into the filter
+     *
+     * @param x
+     * @param y
+     * @param timestamp time of the sample, in nanoseconds
+     * @return whether the filtered gravity has changed enough to be applied
+     */
+    public boolean addSample(double x, double y, long timestamp) {
+        if (lastTimestamp == 0) {
+            // first sample. nothing to smooth against
+            lastTimestamp = timestamp;
+            nextTimestamp = timestamp + getSamplingPeriodNanos();
+            filteredX = x;
+            filteredY = y;
+            return report();
+        }
+
+        long period = getSamplingPeriodNanos();
+        if (timestamp < nextTimestamp - (long) (period * EARLY_FRACTION)) {
+            // arriving faster than wanted
+            return false;
+        }
+        nextTimestamp += period;
+        if (nextTimestamp <= timestamp) {
+            // a period or more behind, e.g. after samples were missed. start over from this one
+            nextTimestamp = timestamp + period;
+        }
+        long elapsed = timestamp - lastTimestamp;
+        lastTimestamp = timestamp;
+
+        // exponential smoothing, weighted by the time passed so the result doesn't depend on the
+        // rate samples arrive at
+        double dt = elapsed / NANOS_PER_SECOND;
+        double alpha = dt / (smoothingTime + dt);
+        filteredX += alpha * (x - filteredX);
+        filteredY += alpha * (y - filteredY);
+
+        if (Math.abs(filteredX - reportedX) < deadBand && Math.abs(filteredY - reportedY) < deadBand) {
+            return false;
+        }
+        return report();
+    }
+
+    private boolean report() {
+        reportedX = filteredX;
+        reportedY = filteredY;
+        return true;
+    }
+
+    private long getSamplingPeriodNanos() {
+        return (long) (NANOS_PER_SECOND / samplingRate);
+    }
+
+    /**
+     * Forget the samples seen so far, e.g. when the sensor is re-registered
+     */
+    public void reset() {
+        lastTimestamp = 0;
+    }
+
+    public double getX() {
+        return reportedX;
+    }
+
+    public double getY() {
+        return reportedY;
+    }
+
+    public int getSamplingRate() {
+        return samplingRate;
+    }
+
+    public void setSamplingRate(int samplingRate) {
+        this.samplingRate = Math.max(1, samplingRate);
+    }
+
+    /**
+     * @return the interval between samples to ask the sensor for, in microseconds
+     */
+    public int getSamplingPeriodUs() {
+        return 1000000 / samplingRate;
+    }
+
+    public double getSmoothingTime() {
+        return smoothingTime;
+    }
+
+    public void setSmoothingTime(double smoothingTime) {
+        this.smoothingTime = smoothingTime;
+    }
+
+    public double getDeadBand() {
+        return deadBand;
+    }
+
+    public void setDeadBand(double deadBand) {
+        this.deadBand = deadBand;
+    }
+}
@@ -6,7 +6,14 @@ import android.content.SharedPreferences;
 import com.greenpudding.R;
 import com.greenpudding.activities.MainActivity;
 import com.greenpudding.model.PuddingModel;
+import com.greenpudding.model.PuddingPhysics;
+import com.greenpudding.model.RenderBackend;
 import com.greenpudding.model.RenderMode;
+import com.greenpudding.model.SpringTopology;
+import com.greenpudding.model.StressColorScheme;
+import com.greenpudding.thread.FrameScheduler;
+import com.greenpudding.thread.FrameStats;
+import com.greenpudding.thread.TouchEventQueue;
 
 public class PuddingConfigurator {
 
@@ -31,25 +38,74 @@ public class PuddingConfigurator {
 
     public void applyPrefs(PuddingModel pudding) {
 
-        pudding.setRadius(getInt(R.string.pref_pudding_radius_key, PuddingModel.DEFAULT_RADIUS));
+        pudding.setRadius(getInt(R.string.pref_pudding_radius_key, PuddingPhysics.DEFAULT_RADIUS));
 
-        pudding.setNumOfNodes(getInt(R.string.pref_number_of_nodes_key, PuddingModel.DEFAULT_NUM_NODES));
+        pudding.setNumOfNodes(getInt(R.string.pref_number_of_nodes_key, PuddingPhysics.DEFAULT_NUM_NODES));
 
         pudding.setBindingElasticity(getInt(R.string.pref_pudding_elasticity_key,
-                new Double(PuddingModel.DEFAULT_BINDING_ELASTICITY).intValue()));
+                new Double(PuddingPhysics.DEFAULT_BINDING_ELASTICITY).intValue()));
 
-        pudding.setIsGravityEnabled(prefs.getBoolean(context.getString(R.string.pref_is_gravity_enabled_key), PuddingModel.DEFAULT_IS_GRAVITY_ENABLED));
+        pudding.setIsGravityEnabled(prefs.getBoolean(context.getString(R.string.pref_is_gravity_enabled_key), PuddingPhysics.DEFAULT_IS_GRAVITY_ENABLED));
 
-        pudding.setIsPinned(prefs.getBoolean(context.getString(R.string.pref_is_pinned_key), PuddingModel.DEFAULT_IS_PINNED));
+        pudding.setIsPinned(prefs.getBoolean(context.getString(R.string.pref_is_pinned_key), PuddingPhysics.DEFAULT_IS_PINNED));
+
+        // apply the spring topology setting
+        String springTopology = prefs.getString(context.getString(R.string.pref_spring_topology_key), "");
+        if (springTopology.equals(context.getString(R.string.spring_topology_ring))) {
+            pudding.setSpringTopology(SpringTopology.RING);
+        } else if (springTopology.equals(context.getString(R.string.spring_topology_k_nearest))) {
+            pudding.setSpringTopology(SpringTopology.K_NEAREST);
+        } else if (springTopology.equals(context.getString(R.string.spring_topology_mesh))) {
+            pudding.setSpringTopology(SpringTopology.MESH);
+        } else {
+            pudding.setSpringTopology(SpringTopology.FULL);
+        }
 
         // apply the render mode setting
         String renderMode = prefs.getString(context.getString(R.string.pref_render_mode_key), "");
         if (renderMode.equals(context.getString(R.string.render_mode_wireframe))) {
             pudding.setRenderMode(RenderMode.WIREFRAME);
+        } else if (renderMode.equals(context.getString(R.string.render_mode_mesh))) {
+            pudding.setRenderMode(RenderMode.MESH);
         } else {
             pudding.setRenderMode(RenderMode.NORMAL);
         }
 
+        // apply the wireframe stress color setting
+        String stressColorScheme = prefs.getString(context.getString(R.string.pref_stress_color_scheme_key), "");
+        if (stressColorScheme.equals(context.getString(R.string.stress_color_scheme_heat))) {
+            pudding.setStressColorScheme(StressColorScheme.HEAT);
+        } else {
+            pudding.setStressColorScheme(StressColorScheme.TINT);
+        }
+
+        // apply the drawing engine setting
+        String renderBackend = prefs.getString(context.getString(R.string.pref_render_backend_key), "");
+        if (renderBackend.equals(context.getString(R.string.render_backend_opengl))) {
+            pudding.setRenderBackend(RenderBackend.OPENGL);
+        } else {
+            pudding.setRenderBackend(RenderBackend.CANVAS);
+        }
+
+        pudding.setIsAdaptiveTessellationEnabled(prefs.getBoolean(
+                context.getString(R.string.pref_is_adaptive_tessellation_enabled_key), OutlineTessellator.DEFAULT_IS_ADAPTIVE));
+
+        // apply the outline detail limit setting
+        String tessellationBudget = prefs.getString(context.getString(R.string.pref_tessellation_budget_key), "");
+        try {
+            pudding.setTessellationBudget(Integer.parseInt(tessellationBudget));
+        } catch (NumberFormatException e) {
+            // in case the pref is not set yet
+            pudding.setTessellationBudget(OutlineTessellator.DEFAULT_VERTEX_BUDGET);
+        }
+
+        pudding.setIsTouchPredictionEnabled(prefs.getBoolean(
+                context.getString(R.string.pref_is_touch_prediction_enabled_key),
+                PuddingPhysics.DEFAULT_IS_TOUCH_PREDICTION_ENABLED));
+
+        pudding.setIsDirtyRectEnabled(prefs.getBoolean(context.getString(R.string.pref_is_dirty_rect_enabled_key),
+                PuddingModel.DEFAULT_IS_DIRTY_RECT_ENABLED));
+
         // apply the pudding color settings
         int defaultPuddingColor = context.getResources().getColor(R.color.color_pudding_default);
         int puddingColor = getInt(R.string.pref_pudding_color_key, defaultPuddingColor);
@@ -65,6 +121,47 @@ public class PuddingConfigurator {
 
     }
 
+    public void applyPrefs(FrameScheduler scheduler) {
+        String frameRate = prefs.getString(context.getString(R.string.pref_frame_rate_key), "");
+        if (frameRate.equals(context.getString(R.string.frame_rate_adaptive))) {
+            scheduler.setIsAdaptive(true);
+        } else {
+            scheduler.setIsAdaptive(false);
+            try {
+                scheduler.setTargetFps(Integer.parseInt(frameRate));
+            } catch (NumberFormatException e) {
+                // in case the pref is not set yet
+                scheduler.setTargetFps(FrameScheduler.DEFAULT_TARGET_FPS);
+            }
+        }
+    }
+
+    public void applyPrefs(GravityFilter filter) {
+        String samplingRate = prefs.getString(context.getString(R.string.pref_gravity_sampling_rate_key), "");
+        try {
+            filter.setSamplingRate(Integer.parseInt(samplingRate));
+        } catch (NumberFormatException e) {
+            // in case the pref is not set yet
+            filter.setSamplingRate(GravityFilter.DEFAULT_SAMPLING_RATE);
+        }
+    }
+
+    public void applyPrefs(BackgroundImage image) {
+        boolean isEnabled = prefs.getBoolean(context.getString(R.string.pref_is_background_image_enabled_key), false);
+        String path = prefs.getString(context.getString(R.string.pref_background_image_key), "");
+        image.setPath(isEnabled && path.length() > 0 ? path : null);
+    }
+
+    public void applyPrefs(FrameStats stats) {
+        stats.setIsOverlayEnabled(prefs.getBoolean(
+                context.getString(R.string.pref_is_frame_stats_overlay_enabled_key), false));
+    }
+
+    public void applyPrefs(TouchEventQueue queue) {
+        queue.setIsHistoryEnabled(prefs.getBoolean(context.getString(R.string.pref_is_touch_history_enabled_key),
+                false));
+    }
+
     /**
      * read int from prefs without raising exceptions
      * @param id
@@ -0,0 +1,78 @@
+package com.greenpudding.thread;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class FixedTimestepTest {
+
+    // 100 steps per second, so a step is 10ms
+    private static final long STEP = 10000000L;
+    // any time but 0, which means the clock hasn't started
+    private static final long START = 1000000000L;
+
+    @Test
+    public void firstFrameOnlyStartsTheClock() {
+        FixedTimestep timestep = new FixedTimestep(100);
+
+        assertEquals(0, timestep.advance(START));
+        assertEquals(0, timestep.getInterpolation(), 0);
+    }
+
+    @Test
+    public void takesOneStepPerStepDuration() {
+        FixedTimestep timestep = new FixedTimestep(100);
+        timestep.advance(START);
+
+        assertEquals(1, timestep.advance(START + STEP));
+        assertEquals(3, timestep.advance(START + 4 * STEP));
+        assertEquals(0, timestep.getInterpolation(), 0);
+    }
+
+    @Test
+    public void carriesTheTimeLeftOverToTheNextFrame() {
+        FixedTimestep timestep = new FixedTimestep(100);
+        timestep.advance(START);
+
+        assertEquals(0, timestep.advance(START + STEP / 2));
+        assertEquals(0.5, timestep.getInterpolation(), 1e-9);
+        assertEquals(1, timestep.advance(START + STEP * 5 / 4));
+        assertEquals(0.25, timestep.getInterpolation(), 1e-9);
+    }
+
+    @Test
+    public void dropsTheTimeItCantCatchUpOn() {
+        FixedTimestep timestep = new FixedTimestep(100);
+        timestep.advance(START);
+
+        assertEquals(FixedTimestep.MAX_STEPS_PER_FRAME, timestep.advance(START + 100 * STEP + STEP / 2));
+        assertEquals(0.5, timestep.getInterpolation(), 1e-9);
+        // and carries on from there instead of spiralling
+        assertEquals(1, timestep.advance(START + 101 * STEP + STEP / 2));
+    }
+
+    @Test
+    public void stepTimesEndWhereTheTimeLeftOverStarts() {
+        FixedTimestep timestep = new FixedTimestep(100);
+        timestep.advance(START);
+
+        long now = START + 3 * STEP + STEP / 4;
+        assertEquals(3, timestep.advance(now));
+        assertEquals(START + STEP, timestep.getStepTime(0));
+        assertEquals(START + 2 * STEP, timestep.getStepTime(1));
+        assertEquals(now - STEP / 4, timestep.getStepTime(2));
+    }
+
+    @Test
+    public void resetRestartsTheClock() {
+        FixedTimestep timestep = new FixedTimestep(100);
+        timestep.advance(START);
+        timestep.advance(START + STEP / 2);
+
+        timestep.reset();
+        // the pause isn't simulated
+        assertEquals(0, timestep.advance(START + 50 * STEP));
+        assertEquals(0, timestep.getInterpolation(), 0);
+        assertEquals(1, timestep.advance(START + 51 * STEP));
+    }
+}
@@ -0,0 +1,163 @@
+package com.greenpudding.thread;
+
+import com.greenpudding.model.PuddingModel;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TouchEventQueueTest {
+
+    /**
+     * Writes down what the queue does to the pudding, one call per line
+     */
+    private static class RecordingPudding extends PuddingModel {
+        private final StringBuilder log = new StringBuilder();
+
+        @Override
+        public void startDragging(double x, double y, int pointerId) {
+            log.append("down ").append(pointerId).append(' ').append(x).append(',').append(y).append('\n');
+        }
+
+        @Override
+        public void setMousePos(double x, double y, int pointerId, long time) {
+            log.append("move ").append(pointerId).append(' ').append(x).append(',').append(y).append(" at ")
+                    .append(time).append('\n');
+        }
+
+        @Override
+        public void stopDragging(int pointerId) {
+            log.append("up ").append(pointerId).append('\n');
+        }
+
+        @Override
+        public void predictPointers(long now) {
+            // not of interest here
+        }
+
+        String takeLog() {
+            String result = log.toString();
+            log.setLength(0);
+            return result;
+        }
+    }
+
+    @Test
+    public void appliesDownsAndUpsInOrderWhenDrained() {
+        TouchEventQueue queue = new TouchEventQueue();
+        RecordingPudding pudding = new RecordingPudding();
+        queue.offer(TouchEventQueue.TOUCH_DOWN, 0, 10, 20, 100);
+        queue.offer(TouchEventQueue.TOUCH_DOWN, 1, 30, 40, 110);
+        queue.offer(TouchEventQueue.TOUCH_UP, 0, 10, 20, 120);
+
+        queue.drainTo(pudding);
+        assertEquals("down 0 10.0,20.0\nmove 0 10.0,20.0 at 100\n"
+                + "down 1 30.0,40.0\nmove 1 30.0,40.0 at 110\n"
+                + "up 0\n", pudding.takeLog());
+        // nothing left
+        queue.drainTo(pudding);
+        assertEquals("", pudding.takeLog());
+    }
+
+    @Test
+    public void coalescesMovesIntoTheLatestPerPointer() {
+        TouchEventQueue queue = new TouchEventQueue();
+        RecordingPudding pudding = new RecordingPudding();
+        queue.offer(TouchEventQueue.TOUCH_DOWN, 0, 0, 0, 0);
+        queue.offer(TouchEventQueue.TOUCH_DOWN, 1, 0, 0, 0);
+        queue.drainTo(pudding);
+        pudding.takeLog();
+
+        queue.offer(TouchEventQueue.TOUCH_MOVE, 0, 1, 1, 10);
+        queue.offer(TouchEventQueue.TOUCH_MOVE, 1, 5, 5, 15);
+        queue.offer(TouchEventQueue.TOUCH_MOVE, 0, 2, 2, 20);
+        queue.offer(TouchEventQueue.TOUCH_MOVE, 0, 3, 3, 30);
+        queue.drainTo(pudding);
+        assertEquals("", pudding.takeLog());
+
+        queue.applyMoves(pudding, 12);
+        assertEquals("move 0 3.0,3.0 at 30\nmove 1 5.0,5.0 at 15\n", pudding.takeLog());
+        // used up
+        queue.applyMoves(pudding, 24);
+        assertEquals("", pudding.takeLog());
+    }
+
+    @Test
+    public void followsTheHistoryBetweenSamples() {
+        TouchEventQueue queue = new TouchEventQueue();
+        queue.setIsHistoryEnabled(true);
+        RecordingPudding pudding = new RecordingPudding();
+        queue.offer(TouchEventQueue.TOUCH_DOWN, 0, 0, 0, 0);
+        queue.offer(TouchEventQueue.TOUCH_MOVE, 0, 10, 0, 10);
+        queue.offer(TouchEventQueue.TOUCH_MOVE, 0, 20, 0, 20);
+        queue.offer(TouchEventQueue.TOUCH_MOVE, 0, 30, 0, 30);
+        queue.drainTo(pudding);
+        pudding.takeLog();
+
+        queue.applyMoves(pudding, 15);
+        assertEquals("move 0 15.0,0.0 at 15\n", pudding.takeLog());
+        queue.applyMoves(pudding, 25);
+        assertEquals("move 0 25.0,0.0 at 25\n", pudding.takeLog());
+        // past the samples, it stays at the latest
+        queue.applyMoves(pudding, 40);
+        assertEquals("move 0 30.0,0.0 at 30\n", pudding.takeLog());
+        queue.applyMoves(pudding, 50);
+        assertEquals("", pudding.takeLog());
+    }
+
+    @Test
+    public void newTouchDropsTheMovesOfTheLastOne() {
+        TouchEventQueue queue = new TouchEventQueue();
+        RecordingPudding pudding = new RecordingPudding();
+        queue.offer(TouchEventQueue.TOUCH_DOWN, 0, 0, 0, 0);
+        queue.offer(TouchEventQueue.TOUCH_MOVE, 0, 5, 5, 10);
+        queue.offer(TouchEventQueue.TOUCH_UP, 0, 5, 5, 20);
+        queue.offer(TouchEventQueue.TOUCH_DOWN, 0, 50, 50, 30);
+        queue.drainTo(pudding);
+        pudding.takeLog();
+
+        queue.applyMoves(pudding, 40);
+        assertEquals("", pudding.takeLog());
+    }
+
+    @Test
+    public void keepsRoomForDownsAndUpsWhenFull() {
+        TouchEventQueue queue = new TouchEventQueue();
+        int moves = 0;
+        while (queue.offer(TouchEventQueue.TOUCH_MOVE, 0, 0, 0, moves)) {
+            moves++;
+        }
+        assertTrue(moves < TouchEventQueue.CAPACITY);
+        assertTrue(queue.offer(TouchEventQueue.TOUCH_UP, 0, 0, 0, moves));
+
+        int others = 1;
+        while (queue.offer(TouchEventQueue.TOUCH_DOWN, 0, 0, 0, moves)) {
+            others++;
+        }
+        assertEquals(TouchEventQueue.CAPACITY, moves + others);
+        assertFalse(queue.offer(TouchEventQueue.TOUCH_UP, 0, 0, 0, moves));
+
+        // and takes events again once drained
+        queue.drainTo(new RecordingPudding());
+        assertTrue(queue.offer(TouchEventQueue.TOUCH_MOVE, 0, 0, 0, moves));
+    }
+
+    @Test
+    public void clearDropsEverythingQueued() {
+        TouchEventQueue queue = new TouchEventQueue();
+        RecordingPudding pudding = new RecordingPudding();
+        queue.offer(TouchEventQueue.TOUCH_DOWN, 0, 0, 0, 0);
+        queue.drainTo(pudding);
+        queue.offer(TouchEventQueue.TOUCH_MOVE, 0, 5, 5, 10);
+        queue.drainTo(pudding);
+        queue.offer(TouchEventQueue.TOUCH_UP, 0, 5, 5, 20);
+        pudding.takeLog();
+
+        queue.clear();
+        queue.drainTo(pudding);
+        queue.applyMoves(pudding, 30);
+        assertEquals("", pudding.takeLog());
+    }
+}
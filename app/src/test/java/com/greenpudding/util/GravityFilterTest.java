@@ -0,0 +1,123 @@
+package com.greenpudding.util;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class GravityFilterTest {
+
+    // any time but 0, which means no sample yet
+    private static final long START = 1000000000L;
+    private static final long MILLIS = 1000000L;
+
+    @Test
+    public void firstSampleIsTakenAsItIs() {
+        GravityFilter filter = new GravityFilter();
+
+        assertTrue(filter.addSample(1, 4, START));
+        assertEquals(1, filter.getX(), 0);
+        assertEquals(4, filter.getY(), 0);
+    }
+
+    @Test
+    public void dropsSamplesFasterThanTheSamplingRate() {
+        GravityFilter filter = new GravityFilter();
+        filter.setSamplingRate(10);
+        filter.addSample(0, 0, START);
+
+        assertFalse(filter.addSample(5, 5, START + 50 * MILLIS));
+        assertEquals(0, filter.getX(), 0);
+        // and doesn't count them as accepted
+        assertTrue(filter.addSample(5, 5, START + 100 * MILLIS));
+    }
+
+    @Test
+    public void acceptsSamplesJitteringAroundTheSamplingPeriod() {
+        GravityFilter filter = new GravityFilter();
+        filter.setSamplingRate(15);
+        // so every accepted sample counts as a change
+        filter.setDeadBand(0);
+        Random random = new Random(7);
+        long period = 1000 * MILLIS / 15;
+
+        int accepted = 0;
+        long time = START;
+        for (int i = 0; i < 150; i++) {
+            // the sensor is registered with the same period, and delivers up to 10% off it
+            time += period + (long) ((random.nextDouble() - 0.5) * 0.2 * period);
+            if (filter.addSample(i % 2, 0, time)) {
+                accepted++;
+            }
+        }
+        assertTrue("accepted " + accepted + " of 150", accepted >= 140);
+    }
+
+    @Test
+    public void keepsToTheSamplingRateWhenTheSensorIsFaster() {
+        GravityFilter filter = new GravityFilter();
+        filter.setSamplingRate(15);
+        filter.setDeadBand(0);
+
+        int accepted = 0;
+        // 60 samples a second, for 2 seconds
+        for (int i = 1; i <= 120; i++) {
+            if (filter.addSample(i % 2, 0, START + i * 1000 * MILLIS / 60)) {
+                accepted++;
+            }
+        }
+        // 15 a second, give or take the first one
+        assertEquals(30, accepted, 1);
+    }
+
+    @Test
+    public void smoothsByTheTimePassed() {
+        GravityFilter filter = new GravityFilter();
+        filter.setSmoothingTime(0.2);
+        filter.addSample(0, 0, START);
+
+        // as long as the time constant: half way
+        assertTrue(filter.addSample(2, -4, START + 200 * MILLIS));
+        assertEquals(1, filter.getX(), 1e-9);
+        assertEquals(-2, filter.getY(), 1e-9);
+    }
+
+    @Test
+    public void ignoresChangesWithinTheDeadBand() {
+        GravityFilter filter = new GravityFilter();
+        filter.setSmoothingTime(0);
+        filter.setDeadBand(0.1);
+        filter.addSample(1, 1, START);
+
+        assertFalse(filter.addSample(1.05, 0.95, START + 100 * MILLIS));
+        assertEquals(1, filter.getX(), 0);
+        // a change on one axis is enough
+        assertTrue(filter.addSample(1.05, 1.2, START + 200 * MILLIS));
+        assertEquals(1.05, filter.getX(), 1e-9);
+        assertEquals(1.2, filter.getY(), 1e-9);
+    }
+
+    @Test
+    public void resetStartsOverFromTheNextSample() {
+        GravityFilter filter = new GravityFilter();
+        filter.addSample(0, 0, START);
+
+        filter.reset();
+        assertTrue(filter.addSample(3, 3, START + MILLIS));
+        assertEquals(3, filter.getX(), 0);
+    }
+
+    @Test
+    public void samplingPeriodFollowsTheRate() {
+        GravityFilter filter = new GravityFilter();
+        filter.setSamplingRate(50);
+        assertEquals(20000, filter.getSamplingPeriodUs());
+
+        // never 0 samples per second
+        filter.setSamplingRate(0);
+        assertEquals(1, filter.getSamplingRate());
+    }
+}
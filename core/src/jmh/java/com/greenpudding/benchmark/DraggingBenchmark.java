@@ -0,0 +1,44 @@
+package com.greenpudding.benchmark;
+
+import com.greenpudding.model.PuddingPhysics;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of a finger touching down on the pudding, i.e. finding the nodes it will drag.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DraggingBenchmark {
+
+    @Param({"12", "50", "200", "500", "2000"})
+    public int numNodes;
+
+    private PuddingPhysics physics;
+
+    @Setup
+    public void setUp() {
+        physics = new PuddingPhysics();
+        physics.setRadius(300);
+        physics.setNumOfNodes(numNodes);
+        physics.setBounds(0, 0, 1080, 1920);
+        physics.refreshNodes();
+    }
+
+    @Benchmark
+    public boolean touchDownAndUp() {
+        physics.startDragging(640, 1000, 0);
+        physics.stopDragging(0);
+        return physics.getIsDragging();
+    }
+}
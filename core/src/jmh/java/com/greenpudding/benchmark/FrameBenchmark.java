@@ -0,0 +1,61 @@
+package com.greenpudding.benchmark;
+
+import com.greenpudding.model.PuddingFrame;
+import com.greenpudding.model.PuddingModel;
+import com.greenpudding.model.PuddingRenderer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What the simulation thread does for the model on each frame: a physics step followed by
+ * capturing the interpolated state for the renderer.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FrameBenchmark {
+
+    @Param({"12", "50", "200"})
+    public int numNodes;
+
+    private PuddingModel pudding;
+
+    // stands in for the platform renderer, only makes sure the positions are used
+    private BlackholeRenderer renderer = new BlackholeRenderer();
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        renderer.blackhole = blackhole;
+        pudding = new PuddingModel();
+        pudding.setNumOfNodes(numNodes);
+        pudding.setBounds(0, 0, 1080, 1920);
+        pudding.refreshNodes();
+        pudding.setGravity(0, 2);
+    }
+
+    @Benchmark
+    public void frame() {
+        pudding.updatePhysics();
+        pudding.render(renderer, 0.5);
+    }
+
+    private static class BlackholeRenderer implements PuddingRenderer {
+        private Blackhole blackhole;
+
+        @Override
+        public void render(PuddingFrame frame) {
+            blackhole.consume(frame.getX());
+            blackhole.consume(frame.getY());
+        }
+    }
+}
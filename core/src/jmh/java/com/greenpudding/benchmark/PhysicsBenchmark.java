@@ -0,0 +1,109 @@
+package com.greenpudding.benchmark;
+
+import com.greenpudding.model.PuddingPhysics;
+import com.greenpudding.model.SpringTopology;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of a single physics step, for various pudding sizes and situations.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class PhysicsBenchmark {
+
+    public enum DragScenario {
+        // nobody touches the pudding
+        NONE,
+        // one finger drags the pudding around
+        SINGLE,
+        // three fingers pull the pudding in different directions
+        MULTI
+    }
+
+    // roughly a 1080p phone screen
+    private static final int SCREEN_WIDTH = 1080;
+    private static final int SCREEN_HEIGHT = 1920;
+    // how far the dragging fingers move around their start position
+    private static final double DRAG_AMPLITUDE = 150;
+
+    @Param({"12", "50", "100", "150", "200", "500"})
+    public int numNodes;
+
+    @Param({"FULL", "MESH"})
+    public SpringTopology topology;
+
+    @Param({"NONE", "SINGLE", "MULTI"})
+    public DragScenario dragScenario;
+
+    @Param({"false", "true"})
+    public boolean isPinned;
+
+    // only makes a difference above PuddingPhysics.PARALLEL_SPRING_THRESHOLD springs
+    @Param({"false", "true"})
+    public boolean isParallelEnabled;
+
+    private PuddingPhysics physics;
+
+    // start position of each dragging pointer
+    private double[] pointerStartX;
+    private double[] pointerStartY;
+
+    // advances on every step, to move the pointers around
+    private int stepCount = 0;
+
+    @Setup
+    public void setUp() {
+        physics = new PuddingPhysics();
+        physics.setRadius(300);
+        physics.setNumOfNodes(numNodes);
+        physics.setSpringTopology(topology);
+        physics.setIsPinned(isPinned);
+        physics.setIsParallelEnabled(isParallelEnabled);
+        physics.setBounds(0, 0, SCREEN_WIDTH, SCREEN_HEIGHT);
+        physics.refreshNodes();
+        physics.setGravity(0, 2);
+
+        int numPointers = (dragScenario == DragScenario.NONE) ? 0 : (dragScenario == DragScenario.SINGLE) ? 1 : 3;
+        pointerStartX = new double[numPointers];
+        pointerStartY = new double[numPointers];
+        for (int i = 0; i < numPointers; i++) {
+            // spread the fingers over the pudding
+            double angle = i * 2 * Math.PI / numPointers;
+            pointerStartX[i] = SCREEN_WIDTH / 2 + 200 * Math.cos(angle);
+            pointerStartY[i] = SCREEN_HEIGHT / 2 + 200 * Math.sin(angle);
+            physics.startDragging(pointerStartX[i], pointerStartY[i], i);
+        }
+
+        // let the pudding settle into a typical state before measuring
+        for (int i = 0; i < 100; i++) {
+            step();
+        }
+    }
+
+    @Benchmark
+    public double updatePhysics() {
+        step();
+        return physics.getMaxNodeSpeed();
+    }
+
+    private void step() {
+        stepCount++;
+        double phase = stepCount * 0.05;
+        for (int i = 0; i < pointerStartX.length; i++) {
+            physics.setMousePos(pointerStartX[i] + DRAG_AMPLITUDE * Math.cos(phase + i),
+                    pointerStartY[i] + DRAG_AMPLITUDE * Math.sin(phase + i), i);
+        }
+        physics.updatePhysics();
+    }
+}
@@ -0,0 +1,57 @@
+package com.greenpudding.model;
+
+/**
+ * Packed storage of the physical attributes of all nodes in the pudding. Each attribute lives
+ * in its own array indexed by node id, so the physics loops walk contiguous memory instead of
+ * chasing one object per node.
+ */
+public class NodeStore {
+
+    // current position
+    public final double[] x;
+    public final double[] y;
+
+    // position before the last physics step
+    public final double[] prevX;
+    public final double[] prevY;
+
+    // current velocity
+    public final double[] vx;
+    public final double[] vy;
+
+    // current acceleration
+    public final double[] ax;
+    public final double[] ay;
+
+    // pinned position
+    public final double[] pinnedX;
+    public final double[] pinnedY;
+
+    private final int size;
+
+    public NodeStore(int size) {
+        this.size = size;
+        x = new double[size];
+        y = new double[size];
+        prevX = new double[size];
+        prevY = new double[size];
+        vx = new double[size];
+        vy = new double[size];
+        ax = new double[size];
+        ay = new double[size];
+        pinnedX = new double[size];
+        pinnedY = new double[size];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param nodeId
+     * @return a view onto the given node. Not meant for the per-frame code paths
+     */
+    public PuddingNode getNode(int nodeId) {
+        return new PuddingNode(this, nodeId);
+    }
+}
@@ -0,0 +1,157 @@
+package com.greenpudding.model;
+
+/**
+ * A snapshot of everything needed to draw the pudding once. Filled in by PuddingModel.capture(),
+ * after which it no longer depends on the model, so it can be drawn by another thread while the
+ * model moves on. The arrays are reused from one capture to the next.
+ */
+public class PuddingFrame {
+
+    // position of each node
+    private double[] x = new double[0];
+    private double[] y = new double[0];
+    private int numNodes = 0;
+
+    // pairs of bound node ids {a0, b0, a1, b1, ...}. never modified once built, so it's shared
+    private int[] springs = new int[0];
+    // the stress on each spring
+    private double[] springForces = new double[0];
+
+    private int color;
+    private int backgroundColor;
+    private RenderMode renderMode = RenderMode.NORMAL;
+    private StressColorScheme stressColorScheme = StressColorScheme.TINT;
+    private boolean isDirtyRectEnabled = false;
+    private RenderBackend renderBackend = RenderBackend.CANVAS;
+    private boolean isAdaptiveTessellationEnabled = false;
+    private int tessellationBudget = 0;
+    // when the latest touch that moved the pudding was sampled, in nanoseconds. 0 if none
+    private long touchTime = 0;
+
+    void setNumNodes(int numNodes) {
+        if (x.length < numNodes) {
+            x = new double[numNodes];
+            y = new double[numNodes];
+        }
+        this.numNodes = numNodes;
+    }
+
+    void setSprings(int[] springs) {
+        if (springForces.length < springs.length / 2) {
+            springForces = new double[springs.length / 2];
+        }
+        this.springs = springs;
+    }
+
+    void setAppearance(int color, int backgroundColor, RenderMode renderMode,
+                       StressColorScheme stressColorScheme) {
+        this.color = color;
+        this.backgroundColor = backgroundColor;
+        this.renderMode = renderMode;
+        this.stressColorScheme = stressColorScheme;
+    }
+
+    void setIsDirtyRectEnabled(boolean isDirtyRectEnabled) {
+        this.isDirtyRectEnabled = isDirtyRectEnabled;
+    }
+
+    void setRenderBackend(RenderBackend renderBackend) {
+        this.renderBackend = renderBackend;
+    }
+
+    void setTessellation(boolean isAdaptiveTessellationEnabled, int tessellationBudget) {
+        this.isAdaptiveTessellationEnabled = isAdaptiveTessellationEnabled;
+        this.tessellationBudget = tessellationBudget;
+    }
+
+    void setTouchTime(long touchTime) {
+        this.touchTime = touchTime;
+    }
+
+    /**
+     * @return x position of each node. may be longer than getNumNodes()
+     */
+    public double[] getX() {
+        return x;
+    }
+
+    /**
+     * @return y position of each node. may be longer than getNumNodes()
+     */
+    public double[] getY() {
+        return y;
+    }
+
+    public int getNumNodes() {
+        return numNodes;
+    }
+
+    /**
+     * @return pairs of bound node ids {a0, b0, a1, b1, ...}
+     */
+    public int[] getSprings() {
+        return springs;
+    }
+
+    public int getNumSprings() {
+        return springs.length / 2;
+    }
+
+    /**
+     * @return the stress on each spring, in the same order as getSprings(). may be longer than
+     * getNumSprings()
+     */
+    public double[] getSpringForces() {
+        return springForces;
+    }
+
+    public int getColor() {
+        return color;
+    }
+
+    public int getBackgroundColor() {
+        return backgroundColor;
+    }
+
+    public RenderMode getRenderMode() {
+        return renderMode;
+    }
+
+    public StressColorScheme getStressColorScheme() {
+        return stressColorScheme;
+    }
+
+    /**
+     * @return whether it's enough to redraw the area the pudding covers, and covered in the
+     * previous frame
+     */
+    public boolean getIsDirtyRectEnabled() {
+        return isDirtyRectEnabled;
+    }
+
+    public RenderBackend getRenderBackend() {
+        return renderBackend;
+    }
+
+    /**
+     * @return whether the outline curves get more segments where they bend or move fast
+     */
+    public boolean getIsAdaptiveTessellationEnabled() {
+        return isAdaptiveTessellationEnabled;
+    }
+
+    /**
+     * @return the most points the outline may be split into, when adaptive
+     */
+    public int getTessellationBudget() {
+        return tessellationBudget;
+    }
+
+    /**
+     * @return when the latest touch the frame responds to was sampled, in nanoseconds. 0 if
+     * the pudding isn't being touched
+     */
+    public long getTouchTime() {
+        return touchTime;
+    }
+}
@@ -0,0 +1,416 @@
+package com.greenpudding.model;
+
+import com.greenpudding.util.OutlineTessellator;
+import com.greenpudding.util.UndirectedWeightedGraph;
+
+import javax.vecmath.Vector2d;
+
+/**
+ * The pudding as shown on screen: its physical simulation, and how it looks. Drawing it is left
+ * to a PuddingRenderer, so the model itself has no dependency on the platform.
+ */
+public class PuddingModel {
+    public static final int DEFAULT_FILL_COLOR = 0xFF9FD867;
+    public static final int DEFAULT_BACKGROUND_COLOR = 0xFFFFFFFF;
+    public static final boolean DEFAULT_IS_DIRTY_RECT_ENABLED = true;
+
+    // the mass points and springs
+    private PuddingPhysics physics;
+    // what render() hands to the renderer
+    private PuddingFrame frame = new PuddingFrame();
+
+    // how the pudding looks, as 0xAARRGGBB colors
+    private int color = DEFAULT_FILL_COLOR;
+    private int backgroundColor = DEFAULT_BACKGROUND_COLOR;
+    private RenderMode renderMode = RenderMode.NORMAL;
+    // how the springs are colored in wireframe mode
+    private StressColorScheme stressColorScheme = StressColorScheme.TINT;
+    // whether only the area around the pudding is redrawn on each frame
+    private boolean isDirtyRectEnabled = DEFAULT_IS_DIRTY_RECT_ENABLED;
+    // what draws the pudding
+    private RenderBackend renderBackend = RenderBackend.CANVAS;
+    // whether the outline gets more detail where it bends or moves, and how much at most
+    private boolean isAdaptiveTessellationEnabled = OutlineTessellator.DEFAULT_IS_ADAPTIVE;
+    private int tessellationBudget = OutlineTessellator.DEFAULT_VERTEX_BUDGET;
+
+    public PuddingModel() {
+        physics = new PuddingPhysics();
+        setNumOfNodes(PuddingPhysics.DEFAULT_NUM_NODES);
+    }
+
+    public final void setNumOfNodes(int numOfNodes) {
+        physics.setNumOfNodes(numOfNodes);
+    }
+
+    public int getNumNodes() {
+        return physics.getNumNodes();
+    }
+
+    /**
+     * @param nodeId
+     * @return a view onto the specified node
+     */
+    public PuddingNode getNode(int nodeId) {
+        return physics.getNodes().getNode(nodeId);
+    }
+
+    public PuddingPhysics getPhysics() {
+        return physics;
+    }
+
+    /**
+     * Regenerate the nodes and springs, and recalculate distances between nodes
+     */
+    public void refreshNodes() {
+        physics.refreshNodes();
+    }
+
+    public int getColor() {
+        return color;
+    }
+
+    public void setColor(int color) {
+        this.color = color;
+    }
+
+    /**
+     * Update the physical status of the pudding by one fixed time step
+     */
+    public void updatePhysics() {
+        physics.updatePhysics();
+    }
+
+    /**
+     * @return whether the pudding has stayed still long enough that simulating it further won't
+     * change anything visible
+     */
+    public boolean getIsAtRest() {
+        return physics.getIsAtRest();
+    }
+
+    /**
+     * Tell the pudding that something may have disturbed it, so it's no longer at rest
+     */
+    public void wakeUp() {
+        physics.wakeUp();
+    }
+
+    /**
+     * Have the renderer draw the pudding as of the current physics step. Should be called on
+     * each frame, after all calculations are done
+     *
+     * @param renderer
+     */
+    public void render(PuddingRenderer renderer) {
+        render(renderer, 1);
+    }
+
+    /**
+     * Have the renderer draw the pudding somewhere between the previous and the current physics
+     * step
+     *
+     * @param renderer
+     * @param interpolation 0 to draw the previous step, 1 to draw the current one
+     */
+    public void render(PuddingRenderer renderer, double interpolation) {
+        capture(frame, interpolation);
+        renderer.render(frame);
+    }
+
+    /**
+     * Save what's needed to draw the pudding somewhere between the previous and the current
+     * physics step, so it can be drawn later, e.g. by another thread
+     *
+     * @param frame         where to save it
+     * @param interpolation 0 for the previous step, 1 for the current one
+     */
+    public void capture(PuddingFrame frame, double interpolation) {
+        NodeStore nodes = physics.getNodes();
+        frame.setNumNodes(nodes.size());
+        double[] x = frame.getX();
+        double[] y = frame.getY();
+        for (int i = 0; i < nodes.size(); i++) {
+            x[i] = nodes.prevX[i] + (nodes.x[i] - nodes.prevX[i]) * interpolation;
+            y[i] = nodes.prevY[i] + (nodes.y[i] - nodes.prevY[i]) * interpolation;
+        }
+
+        frame.setSprings(physics.getSprings());
+        double[] springForces = frame.getSpringForces();
+        UndirectedWeightedGraph forceMap = physics.getForceMap();
+        for (int k = 0; k < forceMap.getNumEdges(); k++) {
+            springForces[k] = forceMap.getEdgeWeightAt(k);
+        }
+
+        frame.setAppearance(color, backgroundColor, renderMode, stressColorScheme);
+        frame.setIsDirtyRectEnabled(isDirtyRectEnabled);
+        frame.setRenderBackend(renderBackend);
+        frame.setTessellation(isAdaptiveTessellationEnabled, tessellationBudget);
+        frame.setTouchTime(physics.getLatestTouchTime());
+    }
+
+
+    /**
+     * Set the size of the pudding.
+     *
+     * @param radius
+     */
+    public void setRadius(int radius) {
+        physics.setRadius(radius);
+    }
+
+    public int getRadius() {
+        return physics.getRadius();
+    }
+
+    public void setGravity(double x, double y) {
+        physics.setGravity(x, y);
+    }
+
+    public Vector2d getGravity() {
+        return physics.getGravity();
+    }
+
+    public void setGravity(Vector2d gravity) {
+        physics.setGravity(gravity);
+    }
+
+    public Boolean getIsPinned() {
+        return physics.getIsPinned();
+    }
+
+    public void setIsPinned(Boolean isPinned) {
+        physics.setIsPinned(isPinned);
+    }
+
+    public double getPinningElasticity() {
+        return physics.getPinningElasticity();
+    }
+
+    public void setPinningElasticity(double pinningElasticity) {
+        physics.setPinningElasticity(pinningElasticity);
+    }
+
+    public double getBindingElasticity() {
+        return physics.getBindingElasticity();
+    }
+
+    public void setBindingElasticity(double elasticity) {
+        physics.setBindingElasticity(elasticity);
+    }
+
+    public double getDampingFactor() {
+        return physics.getDampingFactor();
+    }
+
+    public void setDampingFactor(double damping) {
+        physics.setDampingFactor(damping);
+    }
+
+    /**
+     * Set the upper/lower limit of the position to where a node can move to, and reposition the
+     * nodes inside it
+     */
+    public void setBounds(int left, int top, int right, int bottom) {
+        physics.setBounds(left, top, right, bottom);
+    }
+
+    /**
+     * Save the pointer position of the specified pointer
+     *
+     * @param x
+     * @param y
+     * @param pointerId
+     */
+    public void setMousePos(double x, double y, int pointerId) {
+        physics.setMousePos(x, y, pointerId);
+    }
+
+    /**
+     * Save the pointer position of the specified pointer, and when it was there
+     *
+     * @param x
+     * @param y
+     * @param pointerId
+     * @param time      in nanoseconds
+     */
+    public void setMousePos(double x, double y, int pointerId, long time) {
+        physics.setMousePos(x, y, pointerId, time);
+    }
+
+    /**
+     * Decide where the pointers pull the nodes on the coming steps
+     *
+     * @param now the time the coming step simulates, in nanoseconds
+     */
+    public void predictPointers(long now) {
+        physics.predictPointers(now);
+    }
+
+    public boolean getIsTouchPredictionEnabled() {
+        return physics.getIsTouchPredictionEnabled();
+    }
+
+    public void setIsTouchPredictionEnabled(boolean isTouchPredictionEnabled) {
+        physics.setIsTouchPredictionEnabled(isTouchPredictionEnabled);
+    }
+
+    public long getTouchLatency() {
+        return physics.getTouchLatency();
+    }
+
+    /**
+     * @param touchLatency how long it takes from a touch being sampled to the frame it moved
+     *                     being on screen, in nanoseconds. the pointers are predicted that far
+     */
+    public void setTouchLatency(long touchLatency) {
+        physics.setTouchLatency(touchLatency);
+    }
+
+    /**
+     * Tells the pudding that a mouse dragging is starting
+     *
+     * @param x Mouse position where the dragging starts
+     * @param y Mouse position where the dragging starts
+     */
+    public void startDragging(double x, double y, int pointerId) {
+        physics.startDragging(x, y, pointerId);
+    }
+
+    public void stopDragging(int pointerId) {
+        physics.stopDragging(pointerId);
+    }
+
+    public SpringTopology getSpringTopology() {
+        return physics.getSpringTopology();
+    }
+
+    /**
+     * Set which pairs of nodes are bound by a spring. Takes effect on the next refreshNodes()
+     *
+     * @param springTopology
+     */
+    public void setSpringTopology(SpringTopology springTopology) {
+        physics.setSpringTopology(springTopology);
+    }
+
+    public int getNumNearestNodes() {
+        return physics.getNumNearestNodes();
+    }
+
+    public void setNumNearestNodes(int numNearestNodes) {
+        physics.setNumNearestNodes(numNearestNodes);
+    }
+
+    public int getNumSprings() {
+        return physics.getNumSprings();
+    }
+
+    /**
+     * @return pairs of bound node ids, 2 entries per spring
+     */
+    public int[] getSprings() {
+        return physics.getSprings();
+    }
+
+    /**
+     * @return the stress on each spring in the last physics step
+     */
+    public UndirectedWeightedGraph getForceMap() {
+        return physics.getForceMap();
+    }
+
+    /**
+     * @return the speed of the fastest node in the last physics step, in pixels per step
+     */
+    public double getMaxNodeSpeed() {
+        return physics.getMaxNodeSpeed();
+    }
+
+    /**
+     * @return whether any pointer is dragging the pudding
+     */
+    public boolean getIsDragging() {
+        return physics.getIsDragging();
+    }
+
+    public Boolean getIsGravityEnabled() {
+        return physics.getIsGravityEnabled();
+    }
+
+    public void setIsGravityEnabled(Boolean isGravityEnabled) {
+        physics.setIsGravityEnabled(isGravityEnabled);
+    }
+
+    public RenderMode getRenderMode() {
+        return renderMode;
+    }
+
+    public void setRenderMode(RenderMode mode) {
+        renderMode = mode;
+    }
+
+    public StressColorScheme getStressColorScheme() {
+        return stressColorScheme;
+    }
+
+    public void setStressColorScheme(StressColorScheme stressColorScheme) {
+        this.stressColorScheme = stressColorScheme;
+    }
+
+    public RenderBackend getRenderBackend() {
+        return renderBackend;
+    }
+
+    public void setRenderBackend(RenderBackend renderBackend) {
+        this.renderBackend = renderBackend;
+    }
+
+    public boolean getIsDirtyRectEnabled() {
+        return isDirtyRectEnabled;
+    }
+
+    /**
+     * Allow the renderer to redraw only the area the pudding covers, or covered in the last frame
+     *
+     * @param isDirtyRectEnabled
+     */
+    public void setIsDirtyRectEnabled(boolean isDirtyRectEnabled) {
+        this.isDirtyRectEnabled = isDirtyRectEnabled;
+    }
+
+    public boolean getIsAdaptiveTessellationEnabled() {
+        return isAdaptiveTessellationEnabled;
+    }
+
+    /**
+     * Let the renderer split the outline curves into more segments where they bend or move
+     * fast, and fewer where they're flat and still, instead of the same number everywhere
+     *
+     * @param isAdaptiveTessellationEnabled
+     */
+    public void setIsAdaptiveTessellationEnabled(boolean isAdaptiveTessellationEnabled) {
+        this.isAdaptiveTessellationEnabled = isAdaptiveTessellationEnabled;
+    }
+
+    public int getTessellationBudget() {
+        return tessellationBudget;
+    }
+
+    /**
+     * @param tessellationBudget the most points the outline may be split into on each frame,
+     *                           when adaptive
+     */
+    public void setTessellationBudget(int tessellationBudget) {
+        this.tessellationBudget = tessellationBudget;
+    }
+
+    public int getBackgroundColor() {
+        return backgroundColor;
+    }
+
+    public void setBackgroundColor(int backgroundColor) {
+        this.backgroundColor = backgroundColor;
+    }
+
+
+}
@@ -0,0 +1,50 @@
+package com.greenpudding.model;
+
+import javax.vecmath.Point2d;
+import javax.vecmath.Vector2d;
+
+/**
+ * A view onto the physical attributes of one node in the pudding. The attributes themselves
+ * are stored in a {@link NodeStore}, reads and writes go straight through to it.
+ *
+ */
+public class PuddingNode {
+
+	private final NodeStore store;
+
+	private final int nodeId;
+
+	public PuddingNode(NodeStore store, int nodeId) {
+		this.store = store;
+		this.nodeId = nodeId;
+	}
+
+	public int getNodeId() {
+		return nodeId;
+	}
+
+	// current position
+	public Point2d getPos() {
+		return new Point2d(store.x[nodeId], store.y[nodeId]);
+	}
+
+	public void setPos(double x, double y) {
+		store.x[nodeId] = x;
+		store.y[nodeId] = y;
+	}
+
+	// pinned position
+	public Point2d getPinnedPos() {
+		return new Point2d(store.pinnedX[nodeId], store.pinnedY[nodeId]);
+	}
+
+	// current velocity
+	public Vector2d getVeloc() {
+		return new Vector2d(store.vx[nodeId], store.vy[nodeId]);
+	}
+
+	// current acceleration
+	public Vector2d getAccel() {
+		return new Vector2d(store.ax[nodeId], store.ay[nodeId]);
+	}
+}
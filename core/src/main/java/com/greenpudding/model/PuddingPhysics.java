@@ -0,0 +1,823 @@
+package com.greenpudding.model;
+
+import com.greenpudding.model.dragging.DraggingManager;
+import com.greenpudding.util.SpatialGrid;
+import com.greenpudding.util.SpringTopologyBuilder;
+import com.greenpudding.util.UndirectedWeightedGraph;
+import com.greenpudding.util.WorkerPool;
+
+import java.util.Arrays;
+
+import javax.vecmath.Vector2d;
+
+/**
+ * The physical simulation of the pudding: a set of mass points bound by springs, pulled by
+ * gravity, pinning and dragging pointers, and kept inside a bounding box. Has no dependency on
+ * the platform, so it can run anywhere a JVM does.
+ */
+public class PuddingPhysics {
+    public static final double DEFAULT_BINDING_ELASTICITY = 20f;
+    public static final double DEFAULT_PINNING_ELASTICITY = 0.1f;
+    public static final double DEFAULT_DAMPING_FACTOR = 0.8f;
+    public static final int DEFAULT_RADIUS = 300;
+    public static final int DEFAULT_NUM_NODES = 12;
+    public static final boolean DEFAULT_IS_GRAVITY_ENABLED = true;
+    public static final boolean DEFAULT_IS_PINNED = false;
+    public static final SpringTopology DEFAULT_SPRING_TOPOLOGY = SpringTopology.FULL;
+    public static final int DEFAULT_NUM_NEAREST_NODES = 6;
+    public static final boolean DEFAULT_IS_TOUCH_PREDICTION_ENABLED = true;
+
+    // minimal distance between nodes for the elasticity to work. prevents bug due to floating error
+    public static final double NODE_DISTANCE_THRESHOLD = 0.01f;
+    // mass of each node. used for calculating acceleration
+    public static final double NODE_MASS = 1;
+    // strength of the force dragging the node by mouse
+    public static final double DRAGGING_FORCE_SCALE = 0.5;
+    // nodes moving slower than this, in pixels per step, are considered still
+    public static final double REST_SPEED_THRESHOLD = 0.05;
+    // how many steps the pudding must stay still before it's considered at rest
+    public static final int REST_STEPS_BEFORE_SLEEP = 30;
+    // with at least this many springs the spring forces are computed on several cores. below it
+    // handing the work to other threads costs more than it saves. measured with PhysicsBenchmark,
+    // the break even is around 7000 springs, a FULL pudding of about 120 nodes
+    public static final int PARALLEL_SPRING_THRESHOLD = 7500;
+    // the stiffest the springs may be, as the fastest the pudding can shake: the force of the
+    // springs when the nodes move 1 pixel along their fastest way of shaking. stiffer and a
+    // time step overshoots, so the pudding shakes ever harder and flies apart. more nodes mean
+    // more and shorter springs, so they're made softer to stay below this
+    public static final double MAX_SPRING_STIFFNESS = 0.6;
+    // power iterations to find how stiff the springs are, it converges in a few dozens
+    private static final int STIFFNESS_ITERATIONS = 100;
+    // upper limit of threads helping with the spring forces, on top of the simulating thread
+    public static final int MAX_WORKER_THREADS = 3;
+    // the nodes representing the mass points.
+    private NodeStore nodes = new NodeStore(0);
+    // which pairs of nodes are bound by a spring
+    private SpringTopology springTopology = DEFAULT_SPRING_TOPOLOGY;
+    // number of neighbours each node is bound to in K_NEAREST topology
+    private int numNearestNodes = DEFAULT_NUM_NEAREST_NODES;
+    // the springs, as pairs of node ids {a0, b0, a1, b1, ...}. spring k is edge k of the maps below
+    private int[] springs = new int[0];
+    // the rest distance between each pair of bound nodes
+    private UndirectedWeightedGraph distanceMap;
+    // the stress on the binding of each pair of bound nodes
+    private UndirectedWeightedGraph forceMap;
+    // the springs of each node, in the order they're in springs. the springs of node i are at
+    // [nodeSpringsStart[i], nodeSpringsStart[i + 1]), each as springId * 2, plus 1 if the node
+    // is the first of the pair
+    private int[] nodeSpringsStart = new int[1];
+    private int[] nodeSprings = new int[0];
+    // the acceleration each spring applies to the second node of its pair, and the opposite to
+    // the first
+    private double[] springAccelX = new double[0];
+    private double[] springAccelY = new double[0];
+    // Physical properties
+    // radius, in pixels
+    private int radius = DEFAULT_RADIUS;
+    // the gravity on the nodes
+    private Boolean isGravityEnabled = DEFAULT_IS_GRAVITY_ENABLED;
+    private Vector2d gravity = new Vector2d(0, 0);
+    // whether nodes are pinned to their spawn position by a force
+    private Boolean isPinned = DEFAULT_IS_PINNED;
+    // the strength of the force pinning a node to its original position
+    private double pinningElasticity = DEFAULT_PINNING_ELASTICITY;
+    // the strength in the bond between 2 nodes
+    private double bindingElasticity = DEFAULT_BINDING_ELASTICITY;
+    // how stiff the springs are at rest, see MAX_SPRING_STIFFNESS, for an elasticity of 1
+    private double springStiffnessPerElasticity = 0;
+    // bindingElasticity, lowered if needed so the springs aren't stiffer than MAX_SPRING_STIFFNESS
+    private double springElasticity = DEFAULT_BINDING_ELASTICITY;
+    // the damping factor on the velocity of each node
+    private double dampingFactor = DEFAULT_DAMPING_FACTOR;
+    // the speed of the fastest node in the last step
+    private double maxNodeSpeed = 0;
+    // number of consecutive steps in which the pudding stayed still
+    private int restSteps = 0;
+    // whether the gravity has changed since the last step
+    private volatile boolean isGravityChanged = false;
+
+    // the upper/lower limit of the position to where a node can move to
+    private int boundsLeft = 0;
+    private int boundsTop = 0;
+    private int boundsRight = 0;
+    private int boundsBottom = 0;
+
+    private DraggingManager draggingManager;
+    // which nodes are where, for finding the nodes near a position without checking them all
+    private SpatialGrid nodeGrid = new SpatialGrid();
+
+    // whether the spring forces may be computed on several cores
+    private boolean isParallelEnabled = true;
+    // created the first time the pudding is big enough
+    private WorkerPool workerPool;
+    private final WorkerPool.Task springForceTask = new WorkerPool.Task() {
+        @Override
+        public void run(int part, int numParts) {
+            int numSprings = springs.length / 2;
+            updateSpringAccelerations(numSprings * part / numParts, numSprings * (part + 1) / numParts);
+        }
+    };
+    private final WorkerPool.Task nodeAccelerationTask = new WorkerPool.Task() {
+        @Override
+        public void run(int part, int numParts) {
+            int numNodes = nodes.size();
+            applySpringAccelerations(numNodes * part / numParts, numNodes * (part + 1) / numParts);
+        }
+    };
+
+    public PuddingPhysics() {
+        setNumOfNodes(DEFAULT_NUM_NODES);
+        draggingManager = new DraggingManager();
+        draggingManager.setIsPredictionEnabled(DEFAULT_IS_TOUCH_PREDICTION_ENABLED);
+    }
+
+    public final void setNumOfNodes(int numOfNodes) {
+        // regenerate the nodes
+        nodes = new NodeStore(numOfNodes);
+        // the springs refer to the old nodes. they're rebuilt on refreshNodes()
+        springs = new int[0];
+        distanceMap = new UndirectedWeightedGraph(numOfNodes, springs);
+        forceMap = new UndirectedWeightedGraph(distanceMap);
+        updateNodeSprings();
+        rebuildNodeGrid();
+    }
+
+    public int getNumNodes() {
+        return nodes.size();
+    }
+
+    public NodeStore getNodes() {
+        return nodes;
+    }
+
+    /**
+     * @return the nodes by position, kept up to date on each physics step. positions changed
+     * by other means are picked up on the next step
+     */
+    public SpatialGrid getNodeGrid() {
+        return nodeGrid;
+    }
+
+    /**
+     * @return the springs, as pairs of node ids {a0, b0, a1, b1, ...}
+     */
+    public int[] getSprings() {
+        return springs;
+    }
+
+    /**
+     * @return the stress on each spring, indexed in the same order as getSprings()
+     */
+    public UndirectedWeightedGraph getForceMap() {
+        return forceMap;
+    }
+
+    /**
+     * Regenerate the nodes and springs, and recalculate distances between nodes
+     */
+    public void refreshNodes() {
+        // position the nodes
+        positionNodesAround((boundsRight - boundsLeft) / 2, (boundsBottom - boundsTop) / 2);
+
+        // bind the nodes according to their rest position
+        springs = SpringTopologyBuilder.buildSprings(springTopology, nodes, numNearestNodes);
+        distanceMap = new UndirectedWeightedGraph(nodes.size(), springs);
+        forceMap = new UndirectedWeightedGraph(distanceMap);
+        updateNodeSprings();
+
+        // calculate the distance between node pairs
+        updateDistanceMap();
+    }
+
+    /**
+     * List the springs of each node, for summing up the spring forces node by node
+     */
+    private void updateNodeSprings() {
+        int numSprings = springs.length / 2;
+        nodeSpringsStart = new int[nodes.size() + 1];
+        for (int k = 0; k < springs.length; k++) {
+            nodeSpringsStart[springs[k] + 1]++;
+        }
+        for (int i = 0; i < nodes.size(); i++) {
+            nodeSpringsStart[i + 1] += nodeSpringsStart[i];
+        }
+        // fill in each node's list in spring order
+        int[] next = new int[nodes.size()];
+        System.arraycopy(nodeSpringsStart, 0, next, 0, next.length);
+        nodeSprings = new int[springs.length];
+        for (int k = 0; k < springs.length; k += 2) {
+            nodeSprings[next[springs[k]]++] = k + 1;
+            nodeSprings[next[springs[k + 1]]++] = k;
+        }
+        springAccelX = new double[numSprings];
+        springAccelY = new double[numSprings];
+    }
+
+    /**
+     * Put the nodes on a circle around the given point
+     */
+    private void positionNodesAround(int xPos, int yPos) {
+        for (int i = 0; i < nodes.size(); i++) {
+            // position the nodes along a circle
+            nodes.x[i] = xPos + getRadius() * Math.cos(i * 2 * Math.PI / nodes.size());
+            nodes.y[i] = yPos + getRadius() * Math.sin(i * 2 * Math.PI / nodes.size());
+
+            // remember the current position as their pinned position
+            nodes.pinnedX[i] = nodes.x[i];
+            nodes.pinnedY[i] = nodes.y[i];
+
+            // the nodes jump here, there is nothing to interpolate from
+            nodes.prevX[i] = nodes.x[i];
+            nodes.prevY[i] = nodes.y[i];
+        }
+        rebuildNodeGrid();
+    }
+
+    private void rebuildNodeGrid() {
+        // a drag then looks at no more than 5x5 cells
+        double cellSize = Math.max(1, DraggingManager.getDragRadius() / 2);
+        nodeGrid.rebuild(boundsLeft, boundsTop, boundsRight, boundsBottom, cellSize, nodes.x, nodes.y, nodes.size());
+    }
+
+    private void updateDistanceMap() {
+        // calculate the distance between pairs of bound nodes, store them in
+        // distanceMap
+        for (int k = 0; k < springs.length; k += 2) {
+            int i = springs[k];
+            int j = springs[k + 1];
+            double dx = nodes.x[i] - nodes.x[j];
+            double dy = nodes.y[i] - nodes.y[j];
+            double distance = Math.sqrt(dx * dx + dy * dy);
+            distanceMap.setEdgeWeightAt(k / 2, distance);
+        }
+        springStiffnessPerElasticity = getSpringStiffnessAtRest();
+        updateSpringElasticity();
+    }
+
+    private void updateSpringElasticity() {
+        double stiffness = bindingElasticity * springStiffnessPerElasticity;
+        if (stiffness > MAX_SPRING_STIFFNESS) {
+            springElasticity = bindingElasticity * (MAX_SPRING_STIFFNESS / stiffness);
+        } else {
+            springElasticity = bindingElasticity;
+        }
+    }
+
+    /**
+     * Find the fastest way the pudding can shake around its rest shape, by power iteration, and
+     * how hard the springs pull it back per pixel when shaking that way. For an elasticity of 1.
+     * Allocates, so only when the nodes are refreshed
+     *
+     * @return the largest eigenvalue of the stiffness of the springs
+     */
+    private double getSpringStiffnessAtRest() {
+        int numNodes = nodes.size();
+        double[] shakeX = new double[numNodes];
+        double[] shakeY = new double[numNodes];
+        double[] pullX = new double[numNodes];
+        double[] pullY = new double[numNodes];
+        // any shake that isn't perpendicular to the fastest one, deterministic so that a pudding
+        // always gets the same springs
+        for (int i = 0; i < numNodes; i++) {
+            shakeX[i] = (i * 7) % 13 - 6.5;
+            shakeY[i] = (i * 5) % 11 - 5.5;
+        }
+        double stiffness = 0;
+        for (int iteration = 0; iteration < STIFFNESS_ITERATIONS; iteration++) {
+            Arrays.fill(pullX, 0);
+            Arrays.fill(pullY, 0);
+            for (int k = 0; k < springs.length; k += 2) {
+                int i = springs[k];
+                int j = springs[k + 1];
+                double restLength = distanceMap.getEdgeWeightAt(k / 2);
+                double normX = (nodes.x[i] - nodes.x[j]) / restLength;
+                double normY = (nodes.y[i] - nodes.y[j]) / restLength;
+                // the stretch of the spring, times its stiffness for an elasticity of 1
+                double force = ((shakeX[i] - shakeX[j]) * normX + (shakeY[i] - shakeY[j]) * normY)
+                        / restLength;
+                pullX[i] += force * normX;
+                pullY[i] += force * normY;
+                pullX[j] -= force * normX;
+                pullY[j] -= force * normY;
+            }
+            double shakeLength = 0;
+            double pullLength = 0;
+            for (int i = 0; i < numNodes; i++) {
+                shakeLength += shakeX[i] * shakeX[i] + shakeY[i] * shakeY[i];
+                pullLength += pullX[i] * pullX[i] + pullY[i] * pullY[i];
+            }
+            if (pullLength == 0) {
+                return 0;
+            }
+            shakeLength = Math.sqrt(shakeLength);
+            pullLength = Math.sqrt(pullLength);
+            stiffness = pullLength / shakeLength;
+            for (int i = 0; i < numNodes; i++) {
+                shakeX[i] = pullX[i] / pullLength;
+                shakeY[i] = pullY[i] / pullLength;
+            }
+        }
+        return stiffness;
+    }
+
+    /**
+     * Update the physical status of the pudding by one fixed time step
+     */
+    public void updatePhysics() {
+        // keep the current positions so that rendering can interpolate from them
+        System.arraycopy(nodes.x, 0, nodes.prevX, 0, nodes.size());
+        System.arraycopy(nodes.y, 0, nodes.prevY, 0, nodes.size());
+
+        updateAcceleration();
+        updateVelocity();
+        updatePosition();
+        updateRestState();
+    }
+
+    private void updateRestState() {
+        if (draggingManager.hasPointers() || isGravityChanged || maxNodeSpeed > REST_SPEED_THRESHOLD) {
+            restSteps = 0;
+        } else {
+            restSteps++;
+        }
+        isGravityChanged = false;
+    }
+
+    /**
+     * @return whether the pudding has stayed still long enough that simulating it further won't
+     * change anything visible. not while a gravity change or a pointer waits for the next step
+     */
+    public boolean getIsAtRest() {
+        return restSteps >= REST_STEPS_BEFORE_SLEEP && !isGravityChanged && !draggingManager.hasPointers();
+    }
+
+    /**
+     * Tell the pudding that something may have disturbed it, so it's no longer at rest
+     */
+    public void wakeUp() {
+        restSteps = 0;
+    }
+
+    /**
+     * calculate the force imposed on each node, and their acceleration
+     * accordingly using Hooke's law. Should be called on each frame.
+     */
+    private void updateAcceleration() {
+        for (int i = 0; i < nodes.size(); i++) {
+            // reset acceleration from the calculation in last frame
+            resetAccelerationForNode(i);
+            // for each node, calculate the acceleration due to gravity and pinning
+            updateAccelerationForNode(i);
+        }
+
+        // update acceleration due to mouse dragging force
+        draggingManager.drag(nodes);
+
+        // for each pair of bound nodes, calculate the acceleration due to the force between them
+        if (isParallel()) {
+            // first each spring's force, then each node's sum of them. each thread writes only
+            // its own springs and nodes, and every node adds up its springs in the same order as
+            // below, so the result is exactly the same
+            workerPool.run(springForceTask);
+            workerPool.run(nodeAccelerationTask);
+        } else {
+            int[] springs = this.springs;
+            for (int k = 0; k < springs.length; k += 2) {
+                updateBindingForceAccelerationForNodes(k / 2, springs[k], springs[k + 1]);
+            }
+        }
+
+    }
+
+    private boolean isParallel() {
+        if (!isParallelEnabled || springs.length / 2 < PARALLEL_SPRING_THRESHOLD) {
+            return false;
+        }
+        if (workerPool == null) {
+            int numThreads = Math.min(Runtime.getRuntime().availableProcessors() - 1, MAX_WORKER_THREADS);
+            if (numThreads < 1) {
+                // a single core. no point trying again
+                isParallelEnabled = false;
+                return false;
+            }
+            workerPool = new WorkerPool(numThreads);
+        }
+        return true;
+    }
+
+    /**
+     * Calculate the acceleration due to each spring in the range, without applying it
+     */
+    private void updateSpringAccelerations(int fromSpring, int toSpring) {
+        for (int s = fromSpring; s < toSpring; s++) {
+            int nodeId1 = springs[2 * s];
+            int nodeId2 = springs[2 * s + 1];
+            double scale = updateBindingForce(s, nodeId1, nodeId2);
+            springAccelX[s] = (nodes.x[nodeId1] - nodes.x[nodeId2]) * scale;
+            springAccelY[s] = (nodes.y[nodeId1] - nodes.y[nodeId2]) * scale;
+        }
+    }
+
+    /**
+     * Add the acceleration due to its springs to each node in the range
+     */
+    private void applySpringAccelerations(int fromNode, int toNode) {
+        for (int i = fromNode; i < toNode; i++) {
+            double ax = nodes.ax[i];
+            double ay = nodes.ay[i];
+            for (int e = nodeSpringsStart[i]; e < nodeSpringsStart[i + 1]; e++) {
+                int s = nodeSprings[e] >> 1;
+                if ((nodeSprings[e] & 1) != 0) {
+                    ax -= springAccelX[s];
+                    ay -= springAccelY[s];
+                } else {
+                    ax += springAccelX[s];
+                    ay += springAccelY[s];
+                }
+            }
+            nodes.ax[i] = ax;
+            nodes.ay[i] = ay;
+        }
+    }
+
+    private void resetAccelerationForNode(int nodeId) {
+        nodes.ax[nodeId] = 0;
+        nodes.ay[nodeId] = 0;
+    }
+
+    private void updateAccelerationForNode(int nodeId) {
+        // add the gravity
+        if (isGravityEnabled) {
+            nodes.ax[nodeId] += gravity.x;
+            nodes.ay[nodeId] += gravity.y;
+        }
+
+        if (isPinned) {
+            updatePinningForceAccelerationForNode(nodeId);
+        }
+    }
+
+    private void updatePinningForceAccelerationForNode(int nodeId) {
+        // how much has the node deviated from where it's pinned
+        double displacementX = nodes.x[nodeId] - nodes.pinnedX[nodeId];
+        double displacementY = nodes.y[nodeId] - nodes.pinnedY[nodeId];
+        double norm = Math.sqrt(displacementX * displacementX + displacementY * displacementY);
+
+        // the force due to the displacement
+        double force = -pinningElasticity * norm;
+
+        // use a threshold to prevent weird floating error problem
+        if (norm > NODE_DISTANCE_THRESHOLD) {
+            // the acceleration due to the force
+            double scale = force / norm / NODE_MASS;
+            nodes.ax[nodeId] += displacementX * scale;
+            nodes.ay[nodeId] += displacementY * scale;
+        }
+    }
+
+
+    private void updateBindingForceAccelerationForNodes(int springId, int nodeId1, int nodeId2) {
+        double scale = updateBindingForce(springId, nodeId1, nodeId2);
+        double accelX = (nodes.x[nodeId1] - nodes.x[nodeId2]) * scale;
+        double accelY = (nodes.y[nodeId1] - nodes.y[nodeId2]) * scale;
+
+        // apply the force to the 2 nodes and their acceleration is
+        // affected
+        nodes.ax[nodeId2] += accelX;
+        nodes.ay[nodeId2] += accelY;
+        nodes.ax[nodeId1] -= accelX;
+        nodes.ay[nodeId1] -= accelY;
+    }
+
+    /**
+     * Calculate the force of the spring between the 2 nodes, and save it in the forceMap
+     *
+     * @return the acceleration the spring causes on the second node, per unit of the distance
+     * vector from the second node to the first
+     */
+    private double updateBindingForce(int springId, int nodeId1, int nodeId2) {
+        // the current distance between the 2 nodes is
+        double distanceX = nodes.x[nodeId1] - nodes.x[nodeId2];
+        double distanceY = nodes.y[nodeId1] - nodes.y[nodeId2];
+        double norm = Math.sqrt(distanceX * distanceX + distanceY * distanceY);
+
+        // how much has the binding between the 2 nodes been stretched
+        double restLength = distanceMap.getEdgeWeightAt(springId);
+        double displacement = norm - restLength;
+
+        // Hooke's law. force = k * x; k = elasticity / original length of spring
+        double k = springElasticity / restLength;
+
+        double force;
+        if (displacement >= 0) {
+            // when stretched it's a linear spring
+            force = k * displacement;
+        } else {
+            // when compressed it's not. Prevents flipping.
+            force = -k * Math.pow(-displacement, 1.3);
+        }
+
+
+        // save the force in the forceMap
+        forceMap.setEdgeWeightAt(springId, force);
+
+        // make sure divisor is not too small. prevent floating error
+        if (norm < NODE_DISTANCE_THRESHOLD) {
+            norm = NODE_DISTANCE_THRESHOLD;
+        }
+
+        // the acceleration vector = force / mass * normalizedDistanceVector
+        return force / NODE_MASS / norm;
+    }
+
+    /**
+     * According to its acceleration, calculate each node's new velocity Should
+     * be called on each frame
+     */
+    private void updateVelocity() {
+        for (int i = 0; i < nodes.size(); i++) {
+            // apply the damping factor to avoid nodes going crazy
+            nodes.vx[i] = (nodes.vx[i] + nodes.ax[i]) * dampingFactor;
+            nodes.vy[i] = (nodes.vy[i] + nodes.ay[i]) * dampingFactor;
+        }
+    }
+
+    /**
+     * According to its velocity, update each node's position
+     */
+    private void updatePosition() {
+        double maxSpeedSquared = 0;
+        for (int i = 0; i < nodes.size(); i++) {
+            nodes.x[i] += nodes.vx[i];
+            nodes.y[i] += nodes.vy[i];
+            // if the node is moving out of the valid area
+            if (nodes.x[i] > boundsRight) {
+                nodes.x[i] = boundsRight;
+                nodes.vx[i] = 0;
+            } else if (nodes.x[i] < boundsLeft) {
+                nodes.x[i] = boundsLeft;
+                nodes.vx[i] = 0;
+            }
+
+            if (nodes.y[i] > boundsBottom) {
+                nodes.y[i] = boundsBottom;
+                nodes.vy[i] = 0;
+            } else if (nodes.y[i] < boundsTop) {
+                nodes.y[i] = boundsTop;
+                nodes.vy[i] = 0;
+            }
+
+            // measure how far the node actually moved. a node pressed against the border has
+            // velocity but doesn't move
+            nodeGrid.move(i, nodes.x[i], nodes.y[i]);
+
+            double dx = nodes.x[i] - nodes.prevX[i];
+            double dy = nodes.y[i] - nodes.prevY[i];
+            double speedSquared = dx * dx + dy * dy;
+            if (speedSquared > maxSpeedSquared) {
+                maxSpeedSquared = speedSquared;
+            }
+        }
+        maxNodeSpeed = Math.sqrt(maxSpeedSquared);
+
+    }
+
+    /**
+     * Set the size of the pudding.
+     *
+     * @param radius
+     */
+    public void setRadius(int radius) {
+        // for best effect, set dragging radius to the same as pudding size
+        DraggingManager.setDragRadius(radius);
+        this.radius = radius;
+    }
+
+    public int getRadius() {
+        return radius;
+    }
+
+    public void setGravity(double x, double y) {
+        if (x != gravity.x || y != gravity.y) {
+            this.gravity.set(x, y);
+            isGravityChanged = true;
+        }
+    }
+
+    public Vector2d getGravity() {
+        return gravity;
+    }
+
+    public void setGravity(Vector2d gravity) {
+        setGravity(gravity.x, gravity.y);
+    }
+
+    public Boolean getIsPinned() {
+        return isPinned;
+    }
+
+    public void setIsPinned(Boolean isPinned) {
+        this.isPinned = isPinned;
+    }
+
+    public double getPinningElasticity() {
+        return pinningElasticity;
+    }
+
+    public void setPinningElasticity(double pinningElasticity) {
+        this.pinningElasticity = pinningElasticity;
+    }
+
+    public double getBindingElasticity() {
+        return bindingElasticity;
+    }
+
+    public void setBindingElasticity(double elasticity) {
+        this.bindingElasticity = elasticity;
+        updateSpringElasticity();
+    }
+
+    public double getDampingFactor() {
+        return dampingFactor;
+    }
+
+    public void setDampingFactor(double damping) {
+        this.dampingFactor = damping;
+    }
+
+    /**
+     * Set the area the nodes can move in, and reposition the nodes in its middle
+     *
+     * @param left
+     * @param top
+     * @param right
+     * @param bottom
+     */
+    public void setBounds(int left, int top, int right, int bottom) {
+        boundsLeft = left;
+        boundsTop = top;
+        boundsRight = right;
+        boundsBottom = bottom;
+        // reposition the nodes
+        positionNodesAround((right - left) / 2, (bottom - top) / 2);
+    }
+
+    public int getBoundsLeft() {
+        return boundsLeft;
+    }
+
+    public int getBoundsTop() {
+        return boundsTop;
+    }
+
+    public int getBoundsRight() {
+        return boundsRight;
+    }
+
+    public int getBoundsBottom() {
+        return boundsBottom;
+    }
+
+    /**
+     * Save the pointer position of the specified pointer
+     *
+     * @param x
+     * @param y
+     * @param pointerId
+     */
+    public void setMousePos(double x, double y, int pointerId) {
+        draggingManager.setPointerCurrentPos(pointerId, x, y);
+    }
+
+    /**
+     * Save the pointer position of the specified pointer, and when it was there, for predicting
+     * where it goes next
+     *
+     * @param x
+     * @param y
+     * @param pointerId
+     * @param time      in nanoseconds
+     */
+    public void setMousePos(double x, double y, int pointerId, long time) {
+        draggingManager.setPointerCurrentPos(pointerId, x, y, time);
+    }
+
+    /**
+     * Decide where the pointers pull the nodes on the coming steps. Should be called before a
+     * step when the pointers have timed positions
+     *
+     * @param now the time the coming step simulates, in nanoseconds
+     */
+    public void predictPointers(long now) {
+        draggingManager.predict(now);
+    }
+
+    /**
+     * @return when the most recently sampled pointer was sampled, in nanoseconds. 0 if not known
+     */
+    public long getLatestTouchTime() {
+        return draggingManager.getLatestSampleTime();
+    }
+
+    public boolean getIsTouchPredictionEnabled() {
+        return draggingManager.getIsPredictionEnabled();
+    }
+
+    /**
+     * Pull the nodes towards where the pointers are expected to be once the frame is on screen,
+     * rather than where they were last sampled
+     *
+     * @param isTouchPredictionEnabled
+     */
+    public void setIsTouchPredictionEnabled(boolean isTouchPredictionEnabled) {
+        draggingManager.setIsPredictionEnabled(isTouchPredictionEnabled);
+    }
+
+    public long getTouchLatency() {
+        return draggingManager.getPredictionLatency();
+    }
+
+    /**
+     * @param touchLatency how long it takes from a touch being sampled to the frame it moved
+     *                     being on screen, in nanoseconds
+     */
+    public void setTouchLatency(long touchLatency) {
+        draggingManager.setPredictionLatency(touchLatency);
+    }
+
+    /**
+     * Tells the pudding that a mouse dragging is starting
+     *
+     * @param x Mouse position where the dragging starts
+     * @param y Mouse position where the dragging starts
+     */
+    public void startDragging(double x, double y, int pointerId) {
+        draggingManager.startDragging(pointerId, x, y, nodes, nodeGrid);
+    }
+
+    public void stopDragging(int pointerId) {
+        draggingManager.stopDragging(pointerId);
+    }
+
+    public SpringTopology getSpringTopology() {
+        return springTopology;
+    }
+
+    /**
+     * Set which pairs of nodes are bound by a spring. Takes effect on the next refreshNodes()
+     *
+     * @param springTopology
+     */
+    public void setSpringTopology(SpringTopology springTopology) {
+        this.springTopology = springTopology;
+    }
+
+    public int getNumNearestNodes() {
+        return numNearestNodes;
+    }
+
+    public void setNumNearestNodes(int numNearestNodes) {
+        this.numNearestNodes = numNearestNodes;
+    }
+
+    public int getNumSprings() {
+        return springs.length / 2;
+    }
+
+    public boolean getIsParallelEnabled() {
+        return isParallelEnabled;
+    }
+
+    /**
+     * Allow or forbid computing the spring forces on several cores. It only happens when the
+     * pudding has at least PARALLEL_SPRING_THRESHOLD springs
+     *
+     * @param isParallelEnabled
+     */
+    public void setIsParallelEnabled(boolean isParallelEnabled) {
+        this.isParallelEnabled = isParallelEnabled;
+    }
+
+    /**
+     * @return the speed of the fastest node in the last physics step, in pixels per step
+     */
+    public double getMaxNodeSpeed() {
+        return maxNodeSpeed;
+    }
+
+    /**
+     * @return whether any pointer is dragging the pudding
+     */
+    public boolean getIsDragging() {
+        return draggingManager.hasPointers();
+    }
+
+    public Boolean getIsGravityEnabled() {
+        return isGravityEnabled;
+    }
+
+    public void setIsGravityEnabled(Boolean isGravityEnabled) {
+        this.isGravityEnabled = isGravityEnabled;
+    }
+
+}
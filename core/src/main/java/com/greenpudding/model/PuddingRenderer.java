@@ -0,0 +1,15 @@
+package com.greenpudding.model;
+
+/**
+ * Draws the pudding onto whatever surface the platform provides. The model stays unaware of
+ * how it's drawn, so it can also run without any renderer at all, e.g. in benchmarks.
+ */
+public interface PuddingRenderer {
+
+    /**
+     * Draw the pudding
+     *
+     * @param frame the state of the pudding to draw
+     */
+    void render(PuddingFrame frame);
+}
@@ -0,0 +1,11 @@
+package com.greenpudding.model;
+
+/**
+ * Defines what draws the pudding onto the screen
+ */
+public enum RenderBackend {
+    // the android Canvas api, drawn by the cpu
+    CANVAS,
+    // OpenGL ES 2.0, drawn by the gpu
+    OPENGL;
+}
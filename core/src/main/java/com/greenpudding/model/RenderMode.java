@@ -1,5 +1,5 @@
 package com.greenpudding.model;
 
 public enum RenderMode {
-	NORMAL, WIREFRAME;
+	NORMAL, WIREFRAME, MESH;
 }
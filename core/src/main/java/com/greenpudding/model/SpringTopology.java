@@ -0,0 +1,15 @@
+package com.greenpudding.model;
+
+/**
+ * Defines which pairs of nodes are bound together by a spring
+ */
+public enum SpringTopology {
+    // every node is bound to every other node
+    FULL,
+    // every node is bound to its 2 neighbours on each side along the outline
+    RING,
+    // every node is bound to the nodes closest to it
+    K_NEAREST,
+    // the outline plus a triangulation of the area inside it
+    MESH;
+}
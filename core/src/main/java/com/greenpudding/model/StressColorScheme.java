@@ -0,0 +1,11 @@
+package com.greenpudding.model;
+
+/**
+ * Defines how the springs are colored by their stress in wireframe mode
+ */
+public enum StressColorScheme {
+    // the pudding color, turning red as the stress grows
+    TINT,
+    // a perceptually uniform ramp from dark blue through green to yellow
+    HEAT;
+}
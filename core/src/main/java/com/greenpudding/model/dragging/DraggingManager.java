@@ -0,0 +1,178 @@
+package com.greenpudding.model.dragging;
+
+import com.greenpudding.model.NodeStore;
+import com.greenpudding.util.SpatialGrid;
+
+public class DraggingManager {
+
+    // pointer ids go from 0 up, one per finger on the screen. fingers beyond this are ignored
+    public static final int MAX_POINTERS = 10;
+
+    // nodes withing this radius will be dragged by pointer
+    private  static double dragRadius = 300;
+
+
+    // the pointer of each pointer id, kept once created so dragging again doesn't allocate
+    private Pointer[] pointersById = new Pointer[MAX_POINTERS];
+    // whether each pointer id is dragging
+    private boolean[] isActive = new boolean[MAX_POINTERS];
+
+    // the dragging pointer ids, in the order they touched down
+    private int[] activeIds = new int[MAX_POINTERS];
+    private int numActive = 0;
+
+    // ids of the nodes found near a pointer touching down
+    private int[] nearbyNodeIds = new int[0];
+
+    // whether the pointers pull towards where they're expected to be when the frame is seen
+    private boolean isPredictionEnabled = true;
+    // how long after being sampled a pointer position shows on screen, in nanoseconds
+    private long predictionLatency = 0;
+
+
+    /**
+     * Check the node list and select the nodes to be dragged
+     *
+     * @param pointerId   the pointer that drags nodes
+     * @param pointerPosX starting pointer pos
+     * @param pointerPosY starting pointer pos
+     * @param nodes       the full set of nodes
+     * @param nodeGrid    the nodes by position
+     */
+    public void startDragging(int pointerId, double pointerPosX, double pointerPosY, NodeStore nodes,
+                              SpatialGrid nodeGrid) {
+        if (!isValidId(pointerId)) {
+            return;
+        }
+        Pointer pointer = pointersById[pointerId];
+        if (pointer == null) {
+            pointer = new Pointer();
+            pointersById[pointerId] = pointer;
+        }
+        pointer.reset(pointerPosX, pointerPosY, nodes.size());
+        // find the nodes close to the pointer and drag them
+        if (nearbyNodeIds.length < nodes.size()) {
+            nearbyNodeIds = new int[nodes.size()];
+        }
+        int numNearbyNodes = nodeGrid.findWithin(pointerPosX, pointerPosY, dragRadius, nodes.x, nodes.y,
+                nearbyNodeIds);
+        for (int k = 0; k < numNearbyNodes; k++) {
+            pointer.addDraggedNode(nearbyNodeIds[k], nodes);
+        }
+        // a pointer touching down again starts over as the latest one
+        deactivate(pointerId);
+        isActive[pointerId] = true;
+        activeIds[numActive++] = pointerId;
+    }
+
+    public void stopDragging(int pointerId) {
+        if (isValidId(pointerId)) {
+            deactivate(pointerId);
+        }
+    }
+
+    private void deactivate(int pointerId) {
+        if (!isActive[pointerId]) {
+            return;
+        }
+        isActive[pointerId] = false;
+        // keep the others in order
+        int k = 0;
+        while (activeIds[k] != pointerId) {
+            k++;
+        }
+        System.arraycopy(activeIds, k + 1, activeIds, k, numActive - k - 1);
+        numActive--;
+    }
+
+    private static boolean isValidId(int pointerId) {
+        return pointerId >= 0 && pointerId < MAX_POINTERS;
+    }
+
+    /**
+     * Update the nodes' acceleration due to the drag force. need to set pointer current position
+     * before call this
+     *
+     * @param nodes
+     */
+    public void drag(NodeStore nodes) {
+        for (int k = 0; k < numActive; k++) {
+            pointersById[activeIds[k]].drag(nodes);
+        }
+    }
+
+
+    /**
+     * Decide where each pointer pulls the nodes on the coming steps
+     *
+     * @param now the time the coming step simulates, in nanoseconds
+     */
+    public void predict(long now) {
+        long latency = isPredictionEnabled ? predictionLatency : 0;
+        for (int k = 0; k < numActive; k++) {
+            pointersById[activeIds[k]].predict(now, latency);
+        }
+    }
+
+    /**
+     * @return when the most recently sampled pointer was sampled, in nanoseconds. 0 if not known
+     */
+    public long getLatestSampleTime() {
+        long latest = 0;
+        for (int k = 0; k < numActive; k++) {
+            latest = Math.max(latest, pointersById[activeIds[k]].getLastSampleTime());
+        }
+        return latest;
+    }
+
+    public boolean hasPointers() {
+        return numActive > 0;
+    }
+
+    public void setPointerCurrentPos(int pointerId, double x, double y) {
+        // the pointer may be gone if its down event was dropped
+        if (isValidId(pointerId) && isActive[pointerId]) {
+            pointersById[pointerId].setPointerCurrentPos(x, y);
+        }
+    }
+
+    /**
+     * @param pointerId
+     * @param x
+     * @param y
+     * @param time      when the pointer was there, in nanoseconds
+     */
+    public void setPointerCurrentPos(int pointerId, double x, double y, long time) {
+        if (isValidId(pointerId) && isActive[pointerId]) {
+            pointersById[pointerId].setPointerCurrentPos(x, y, time);
+        }
+    }
+
+    public boolean getIsPredictionEnabled() {
+        return isPredictionEnabled;
+    }
+
+    public void setIsPredictionEnabled(boolean isPredictionEnabled) {
+        this.isPredictionEnabled = isPredictionEnabled;
+    }
+
+    public long getPredictionLatency() {
+        return predictionLatency;
+    }
+
+    /**
+     * @param predictionLatency how far ahead of their last sample to predict the pointers, in
+     *                          nanoseconds
+     */
+    public void setPredictionLatency(long predictionLatency) {
+        this.predictionLatency = predictionLatency;
+    }
+
+    public static double getDragRadius() {
+        return dragRadius;
+    }
+
+    public static void setDragRadius(double d) {
+        dragRadius = d;
+    }
+}
@@ -0,0 +1,215 @@
+package com.greenpudding.model.dragging;
+
+import com.greenpudding.model.NodeStore;
+import com.greenpudding.model.PuddingPhysics;
+
+/**
+ * A finger dragging the pudding, and the nodes it drags. Everything is kept in primitive
+ * fields and arrays, reused from one drag to the next, so dragging doesn't allocate.
+ * <p/>
+ * With prediction, the nodes are pulled towards where the finger is expected to be by the time
+ * the frame reaches the screen, extrapolated from its last few positions, rather than where it
+ * was when it was last sampled.
+ */
+public class Pointer {
+
+    // samples kept for estimating the velocity and acceleration
+    private static final int NUM_SAMPLES = 3;
+    // samples older than this tell nothing about where the finger is going: it has stopped
+    private static final long MAX_SAMPLE_AGE = 100000000L;
+    // the furthest ahead of its last position the finger is predicted, in pixels
+    private static final double MAX_PREDICTION_DISTANCE = 100;
+
+    // postion of the pointer when dragging started
+    private double startX;
+    private double startY;
+
+    private double currentX;
+    private double currentY;
+
+    // the last positions of the pointer, newest first, and when it was there in nanoseconds
+    private long[] sampleTimes = new long[NUM_SAMPLES];
+    private double[] sampleX = new double[NUM_SAMPLES];
+    private double[] sampleY = new double[NUM_SAMPLES];
+    private int numSamples = 0;
+
+    // where the nodes are pulled to. the current position unless predicted
+    private double targetX;
+    private double targetY;
+
+    // ids of the nodes being dragged by this pointer
+    private int[] draggedNodeIds = new int[0];
+    // position of the dragged nodes when dragging started, in the same order as draggedNodeIds
+    private double[] nodeStartX = new double[0];
+    private double[] nodeStartY = new double[0];
+    private int numDraggedNodes = 0;
+
+    /**
+     * Start a new drag, forgetting the nodes of the last one
+     *
+     * @param x        where the pointer touched down
+     * @param y
+     * @param numNodes the number of nodes in the pudding, the most that can be dragged
+     */
+    public void reset(double x, double y, int numNodes) {
+        startX = x;
+        startY = y;
+        currentX = x;
+        currentY = y;
+        targetX = x;
+        targetY = y;
+        numSamples = 0;
+        if (draggedNodeIds.length < numNodes) {
+            draggedNodeIds = new int[numNodes];
+            nodeStartX = new double[numNodes];
+            nodeStartY = new double[numNodes];
+        }
+        numDraggedNodes = 0;
+    }
+
+    public void addDraggedNode(int nodeId, NodeStore nodes) {
+        draggedNodeIds[numDraggedNodes] = nodeId;
+        // store the nodes' starting position
+        nodeStartX[numDraggedNodes] = nodes.x[nodeId];
+        nodeStartY[numDraggedNodes] = nodes.y[nodeId];
+        numDraggedNodes++;
+    }
+
+    /**
+     * update the acceleration of the nodes, according to the dragging force from pointer
+     *
+     * @param nodes
+     */
+    public void drag(NodeStore nodes) {
+        // pointer displacement represents how the pointer moved since touch event
+        double displacementX = targetX - startX;
+        double displacementY = targetY - startY;
+        // accel = force/mass = scale*displacement/mass
+        double accelerationScale = PuddingPhysics.DRAGGING_FORCE_SCALE / PuddingPhysics.NODE_MASS;
+        double dragRadius = DraggingManager.getDragRadius();
+
+        // for each node being dragged by this pointer
+        for (int i = 0; i < numDraggedNodes; i++) {
+            int nodeId = draggedNodeIds[i];
+            // the node's target is its original position + mouse drag displacement vector
+            double nodeTargetX = nodeStartX[i] + displacementX;
+            double nodeTargetY = nodeStartY[i] + displacementY;
+
+            double accelerationX = accelerationScale * (nodeTargetX - nodes.x[nodeId]);
+            double accelerationY = accelerationScale * (nodeTargetY - nodes.y[nodeId]);
+            // the further the node is from pointer, the less force it gets
+            double dx = targetX - nodeTargetX;
+            double dy = targetY - nodeTargetY;
+            double falloff = 1 - Math.sqrt(dx * dx + dy * dy) / dragRadius;
+            nodes.ax[nodeId] += falloff * accelerationX;
+            nodes.ay[nodeId] += falloff * accelerationY;
+        }
+    }
+
+    public int getNumDraggedNodes() {
+        return numDraggedNodes;
+    }
+
+    public double getCurrentX() {
+        return currentX;
+    }
+
+    public double getCurrentY() {
+        return currentY;
+    }
+
+    /**
+     * Move the pointer, without telling when. Prediction is off until the next timed move
+     *
+     * @param x
+     * @param y
+     */
+    public void setPointerCurrentPos(double x, double y) {
+        currentX = x;
+        currentY = y;
+        targetX = x;
+        targetY = y;
+        numSamples = 0;
+    }
+
+    /**
+     * Move the pointer, and remember the move for predicting the next ones
+     *
+     * @param x
+     * @param y
+     * @param time when the pointer was there, in nanoseconds
+     */
+    public void setPointerCurrentPos(double x, double y, long time) {
+        currentX = x;
+        currentY = y;
+        targetX = x;
+        targetY = y;
+        if (numSamples > 0 && time <= sampleTimes[0]) {
+            // no time has passed, it's a correction of the last sample
+            sampleX[0] = x;
+            sampleY[0] = y;
+            return;
+        }
+        for (int k = Math.min(numSamples, NUM_SAMPLES - 1); k > 0; k--) {
+            sampleTimes[k] = sampleTimes[k - 1];
+            sampleX[k] = sampleX[k - 1];
+            sampleY[k] = sampleY[k - 1];
+        }
+        sampleTimes[0] = time;
+        sampleX[0] = x;
+        sampleY[0] = y;
+        numSamples = Math.min(numSamples + 1, NUM_SAMPLES);
+    }
+
+    /**
+     * Decide where the nodes are pulled to on the coming steps
+     *
+     * @param now       the time the coming step simulates, in nanoseconds
+     * @param latency   how long after being sampled a position shows on screen, in nanoseconds.
+     *                  0 to pull towards the last position
+     */
+    public void predict(long now, long latency) {
+        targetX = currentX;
+        targetY = currentY;
+        if (latency <= 0 || numSamples < 2 || now - sampleTimes[0] > MAX_SAMPLE_AGE) {
+            return;
+        }
+        // velocity over the last 2 samples, in pixels per nanosecond
+        double dt = sampleTimes[0] - sampleTimes[1];
+        double vx = (sampleX[0] - sampleX[1]) / dt;
+        double vy = (sampleY[0] - sampleY[1]) / dt;
+        double offsetX = vx * latency;
+        double offsetY = vy * latency;
+        if (numSamples == 3) {
+            // the change from the velocity over the 2 samples before
+            double dtBefore = sampleTimes[1] - sampleTimes[2];
+            double ax = (vx - (sampleX[1] - sampleX[2]) / dtBefore) * 2 / (dt + dtBefore);
+            double ay = (vy - (sampleY[1] - sampleY[2]) / dtBefore) * 2 / (dt + dtBefore);
+            offsetX += 0.5 * ax * latency * latency;
+            offsetY += 0.5 * ay * latency * latency;
+        }
+        // a jerky finger can make the estimate fly off
+        double distance = Math.sqrt(offsetX * offsetX + offsetY * offsetY);
+        if (distance > MAX_PREDICTION_DISTANCE) {
+            offsetX *= MAX_PREDICTION_DISTANCE / distance;
+            offsetY *= MAX_PREDICTION_DISTANCE / distance;
+        }
+        targetX = currentX + offsetX;
+        targetY = currentY + offsetY;
+    }
+
+    /**
+     * @return when the pointer was last sampled, in nanoseconds. 0 if not known
+     */
+    public long getLastSampleTime() {
+        return numSamples == 0 ? 0 : sampleTimes[0];
+    }
+
+    public double getTargetX() {
+        return targetX;
+    }
+
+    public double getTargetY() {
+        return targetY;
+    }
+}
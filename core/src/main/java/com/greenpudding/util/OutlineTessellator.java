@@ -0,0 +1,203 @@
+package com.greenpudding.util;
+
+/**
+ * Turns the outline of the pudding into a closed polygon, for drawing it with primitives that
+ * don't know curves. The outline is the same as the one drawn with paths: one quadratic curve
+ * per node, using the node as the control point, running between the midpoints to its
+ * neighbours. Each curve is approximated by straight segments, either a fixed number of them,
+ * or, when adaptive, as many as it takes to follow the curve as it's seen on screen.
+ */
+public class OutlineTessellator {
+    public static final int DEFAULT_SEGMENTS_PER_CURVE = 4;
+    public static final boolean DEFAULT_IS_ADAPTIVE = true;
+    public static final int DEFAULT_VERTEX_BUDGET = 512;
+    // how far, in pixels, the segments may stray from the curve
+    public static final double DEFAULT_TOLERANCE = 0.5;
+
+    // no curve gets more than this, however bent
+    private static final int MAX_SEGMENTS_PER_CURVE = 32;
+    // how far, in pixels, a node moves since the last call for its curve to get one more segment
+    private static final double MOTION_PER_SEGMENT = 8;
+
+    private int segmentsPerCurve = DEFAULT_SEGMENTS_PER_CURVE;
+    private boolean isAdaptive = DEFAULT_IS_ADAPTIVE;
+    // the most points the polygon may have when adaptive
+    private int vertexBudget = DEFAULT_VERTEX_BUDGET;
+    private double tolerance = DEFAULT_TOLERANCE;
+
+    // the number of segments for the curve of each node
+    private int[] segments = new int[0];
+    private int numSegments = 0;
+
+    // the node positions of the last call, to see how fast each part of the outline moves
+    private double[] lastX = new double[0];
+    private double[] lastY = new double[0];
+    private int lastNumNodes = 0;
+
+    // the corners of the polygon as {x0, y0, x1, y1, ...}. reused from one call to the next
+    private float[] points = new float[0];
+    private int numPoints = 0;
+
+    /**
+     * Decide how many segments the curve of each node gets, without computing the points. For
+     * drawing the curves some other way, e.g. on the gpu
+     *
+     * @param x        x position of each node, along the outline
+     * @param y        y position of each node, along the outline
+     * @param numNodes
+     */
+    public void subdivide(double[] x, double[] y, int numNodes) {
+        if (segments.length < numNodes) {
+            segments = new int[numNodes];
+        }
+        if (!isAdaptive) {
+            for (int i = 0; i < numNodes; i++) {
+                segments[i] = segmentsPerCurve;
+            }
+            numSegments = numNodes * segmentsPerCurve;
+            return;
+        }
+
+        boolean isMotionKnown = (lastNumNodes == numNodes);
+        int total = 0;
+        for (int i = 0; i < numNodes; i++) {
+            int previous = (i == 0) ? numNodes - 1 : i - 1;
+            int next = (i == numNodes - 1) ? 0 : i + 1;
+            // start - 2 * node + end, in terms of the nodes. a segment covering the fraction h
+            // of the curve strays from it by at most |this| * h^2 / 4
+            double bendX = (x[previous] - 2 * x[i] + x[next]) * 0.5;
+            double bendY = (y[previous] - 2 * y[i] + y[next]) * 0.5;
+            double bend = Math.sqrt(bendX * bendX + bendY * bendY);
+            double wanted = Math.sqrt(bend / (4 * tolerance));
+            // parts in fast motion are where the eye goes, so they get a bit more
+            if (isMotionKnown) {
+                double moveX = x[i] - lastX[i];
+                double moveY = y[i] - lastY[i];
+                wanted += Math.sqrt(moveX * moveX + moveY * moveY) / MOTION_PER_SEGMENT;
+            }
+            int count = Math.max(1, Math.min(MAX_SEGMENTS_PER_CURVE, (int) Math.ceil(wanted)));
+            segments[i] = count;
+            total += count;
+        }
+        remember(x, y, numNodes);
+
+        if (total > vertexBudget) {
+            // shrink every curve by the same ratio, rounding down so the budget holds
+            double ratio = (double) vertexBudget / total;
+            total = 0;
+            for (int i = 0; i < numNodes; i++) {
+                segments[i] = Math.max(1, (int) (segments[i] * ratio));
+                total += segments[i];
+            }
+        }
+        numSegments = total;
+    }
+
+    private void remember(double[] x, double[] y, int numNodes) {
+        if (lastX.length < numNodes) {
+            lastX = new double[numNodes];
+            lastY = new double[numNodes];
+        }
+        System.arraycopy(x, 0, lastX, 0, numNodes);
+        System.arraycopy(y, 0, lastY, 0, numNodes);
+        lastNumNodes = numNodes;
+    }
+
+    /**
+     * @param x        x position of each node, along the outline
+     * @param y        y position of each node, along the outline
+     * @param numNodes
+     */
+    public void tessellate(double[] x, double[] y, int numNodes) {
+        subdivide(x, y, numNodes);
+        numPoints = numSegments;
+        if (points.length < 2 * numPoints) {
+            points = new float[2 * numPoints];
+        }
+
+        int offset = 0;
+        for (int i = 0; i < numNodes; i++) {
+            int previous = (i == 0) ? numNodes - 1 : i - 1;
+            int next = (i == numNodes - 1) ? 0 : i + 1;
+            // the curve runs from the midpoint with the previous node to the one with the next
+            double startX = (x[previous] + x[i]) * 0.5;
+            double startY = (y[previous] + y[i]) * 0.5;
+            double endX = (x[i] + x[next]) * 0.5;
+            double endY = (y[i] + y[next]) * 0.5;
+            // the start was added as the end of the previous curve
+            int count = segments[i];
+            for (int k = 1; k <= count; k++) {
+                double t = (double) k / count;
+                double u = 1 - t;
+                points[offset++] = (float) (u * u * startX + 2 * u * t * x[i] + t * t * endX);
+                points[offset++] = (float) (u * u * startY + 2 * u * t * y[i] + t * t * endY);
+            }
+        }
+    }
+
+    /**
+     * @return the corners of the polygon as {x0, y0, x1, y1, ...}. may be longer than
+     * 2 * getNumPoints()
+     */
+    public float[] getPoints() {
+        return points;
+    }
+
+    public int getNumPoints() {
+        return numPoints;
+    }
+
+    /**
+     * @return the number of segments for the curve of each node, as of the last call. may be
+     * longer than the number of nodes
+     */
+    public int[] getSegments() {
+        return segments;
+    }
+
+    /**
+     * @return the number of segments of all curves together, as of the last call
+     */
+    public int getNumSegments() {
+        return numSegments;
+    }
+
+    public int getSegmentsPerCurve() {
+        return segmentsPerCurve;
+    }
+
+    /**
+     * @param segmentsPerCurve used for every curve when not adaptive
+     */
+    public void setSegmentsPerCurve(int segmentsPerCurve) {
+        this.segmentsPerCurve = segmentsPerCurve;
+    }
+
+    public boolean getIsAdaptive() {
+        return isAdaptive;
+    }
+
+    public void setIsAdaptive(boolean isAdaptive) {
+        this.isAdaptive = isAdaptive;
+    }
+
+    public int getVertexBudget() {
+        return vertexBudget;
+    }
+
+    /**
+     * @param vertexBudget the most points the polygon may have when adaptive. each curve gets
+     *                     at least one segment, whatever the budget
+     */
+    public void setVertexBudget(int vertexBudget) {
+        this.vertexBudget = vertexBudget;
+    }
+
+    public double getTolerance() {
+        return tolerance;
+    }
+
+    public void setTolerance(double tolerance) {
+        this.tolerance = tolerance;
+    }
+}
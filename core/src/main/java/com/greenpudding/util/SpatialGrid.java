@@ -0,0 +1,156 @@
+package com.greenpudding.util;
+
+/**
+ * A uniform grid of square cells over an area, listing which points are in each cell. Finds
+ * the points within a radius of a position by looking only at the cells the circle touches.
+ * Points are tracked by id, and moving one to another cell costs the same whatever the number
+ * of points, so the grid can be kept up to date on every step. Points outside the area are
+ * counted in the nearest cell on the border.
+ */
+public class SpatialGrid {
+
+    private double left = 0;
+    private double top = 0;
+    private double cellSize = 1;
+    private int numColumns = 1;
+    private int numRows = 1;
+
+    // the first point in each cell, or -1. the points of a cell form a doubly linked list
+    private int[] cellFirst = {-1};
+    // the cell of each point
+    private int[] pointCell = new int[0];
+    // the neighbours of each point in the list of its cell, or -1
+    private int[] pointNext = new int[0];
+    private int[] pointPrevious = new int[0];
+    private int numPoints = 0;
+
+    /**
+     * Lay out the cells over the area and put the points in them
+     *
+     * @param left      the area
+     * @param top
+     * @param right
+     * @param bottom
+     * @param cellSize  the side of a cell. about the radius of the common queries works well
+     * @param x         x position of each point
+     * @param y         y position of each point
+     * @param numPoints
+     */
+    public void rebuild(double left, double top, double right, double bottom, double cellSize,
+                        double[] x, double[] y, int numPoints) {
+        this.left = left;
+        this.top = top;
+        this.cellSize = cellSize;
+        numColumns = Math.max(1, (int) Math.ceil((right - left) / cellSize));
+        numRows = Math.max(1, (int) Math.ceil((bottom - top) / cellSize));
+        if (cellFirst.length < numColumns * numRows) {
+            cellFirst = new int[numColumns * numRows];
+        }
+        for (int c = 0; c < numColumns * numRows; c++) {
+            cellFirst[c] = -1;
+        }
+
+        if (pointCell.length < numPoints) {
+            pointCell = new int[numPoints];
+            pointNext = new int[numPoints];
+            pointPrevious = new int[numPoints];
+        }
+        this.numPoints = numPoints;
+        for (int i = 0; i < numPoints; i++) {
+            link(i, cellOf(x[i], y[i]));
+        }
+    }
+
+    /**
+     * Update the cell of a point after it has moved
+     *
+     * @param id
+     * @param x  new position of the point
+     * @param y
+     */
+    public void move(int id, double x, double y) {
+        int cell = cellOf(x, y);
+        if (cell != pointCell[id]) {
+            unlink(id);
+            link(id, cell);
+        }
+    }
+
+    /**
+     * Find the points within a distance of a position
+     *
+     * @param centerX
+     * @param centerY
+     * @param radius
+     * @param x       x position of each point, as last given to the grid
+     * @param y       y position of each point, as last given to the grid
+     * @param result  where to save the ids of the points found. must have room for all points
+     * @return the number of points found
+     */
+    public int findWithin(double centerX, double centerY, double radius, double[] x, double[] y, int[] result) {
+        int fromColumn = columnOf(centerX - radius);
+        int toColumn = columnOf(centerX + radius);
+        int fromRow = rowOf(centerY - radius);
+        int toRow = rowOf(centerY + radius);
+        double radiusSquared = radius * radius;
+        int count = 0;
+        for (int row = fromRow; row <= toRow; row++) {
+            for (int column = fromColumn; column <= toColumn; column++) {
+                for (int i = cellFirst[row * numColumns + column]; i != -1; i = pointNext[i]) {
+                    double dx = x[i] - centerX;
+                    double dy = y[i] - centerY;
+                    if (dx * dx + dy * dy <= radiusSquared) {
+                        result[count++] = i;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    public int getNumPoints() {
+        return numPoints;
+    }
+
+    public double getCellSize() {
+        return cellSize;
+    }
+
+    private int cellOf(double x, double y) {
+        return rowOf(y) * numColumns + columnOf(x);
+    }
+
+    private int columnOf(double x) {
+        int column = (int) Math.floor((x - left) / cellSize);
+        return Math.max(0, Math.min(numColumns - 1, column));
+    }
+
+    private int rowOf(double y) {
+        int row = (int) Math.floor((y - top) / cellSize);
+        return Math.max(0, Math.min(numRows - 1, row));
+    }
+
+    private void link(int id, int cell) {
+        int first = cellFirst[cell];
+        pointCell[id] = cell;
+        pointPrevious[id] = -1;
+        pointNext[id] = first;
+        if (first != -1) {
+            pointPrevious[first] = id;
+        }
+        cellFirst[cell] = id;
+    }
+
+    private void unlink(int id) {
+        int previous = pointPrevious[id];
+        int next = pointNext[id];
+        if (previous == -1) {
+            cellFirst[pointCell[id]] = next;
+        } else {
+            pointNext[previous] = next;
+        }
+        if (next != -1) {
+            pointPrevious[next] = previous;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.greenpudding.util;
+
+import com.greenpudding.model.NodeStore;
+import com.greenpudding.model.SpringTopology;
+
+import java.util.Arrays;
+
+/**
+ * Generates the list of springs binding the nodes of a pudding. Springs are returned as a flat
+ * array of node id pairs {a0, b0, a1, b1, ...} with a < b in every pair, ordered by a then b.
+ */
+public class SpringTopologyBuilder {
+
+    // how many hops along the outline a node is bound to, in RING topology
+    public static final int RING_SPAN = 2;
+
+    private SpringTopologyBuilder() {
+    }
+
+    /**
+     * @param topology
+     * @param nodes          the nodes, at their rest position
+     * @param nearestCount   number of neighbours each node binds to in K_NEAREST topology
+     * @return the springs, as pairs of node ids
+     */
+    public static int[] buildSprings(SpringTopology topology, NodeStore nodes, int nearestCount) {
+        int numNodes = nodes.size();
+        if (numNodes < 2) {
+            return new int[0];
+        }
+        switch (topology) {
+            case RING:
+                return buildRing(numNodes);
+            case K_NEAREST:
+                return buildNearest(nodes, nearestCount);
+            case MESH:
+                return buildMesh(numNodes);
+            case FULL:
+            default:
+                return buildFull(numNodes);
+        }
+    }
+
+    private static int[] buildFull(int numNodes) {
+        int[] springs = new int[numNodes * (numNodes - 1)];
+        int k = 0;
+        for (int i = 0; i < numNodes - 1; i++) {
+            for (int j = i + 1; j < numNodes; j++) {
+                springs[k++] = i;
+                springs[k++] = j;
+            }
+        }
+        return springs;
+    }
+
+    private static int[] buildRing(int numNodes) {
+        EdgeSet edges = new EdgeSet(numNodes, numNodes * RING_SPAN);
+        for (int i = 0; i < numNodes; i++) {
+            for (int hop = 1; hop <= RING_SPAN; hop++) {
+                edges.add(i, (i + hop) % numNodes);
+            }
+        }
+        return edges.toArray();
+    }
+
+    /**
+     * Bind each node to the nearestCount nodes closest to it. The relation isn't symmetric, so a
+     * node may end up with more springs than nearestCount
+     */
+    private static int[] buildNearest(NodeStore nodes, int nearestCount) {
+        int numNodes = nodes.size();
+        int count = Math.min(nearestCount, numNodes - 1);
+        EdgeSet edges = new EdgeSet(numNodes, numNodes * count);
+
+        // the closest nodes found so far for the current node, sorted by distance
+        int[] nearestIds = new int[count];
+        double[] nearestDistances = new double[count];
+        for (int i = 0; i < numNodes; i++) {
+            int found = 0;
+            for (int j = 0; j < numNodes; j++) {
+                if (j == i) {
+                    continue;
+                }
+                double dx = nodes.x[i] - nodes.x[j];
+                double dy = nodes.y[i] - nodes.y[j];
+                double distance = dx * dx + dy * dy;
+                if (found == count && distance >= nearestDistances[count - 1]) {
+                    continue;
+                }
+                // insert j into the sorted list, dropping the furthest one if it's full
+                int pos = (found < count) ? found++ : count - 1;
+                while (pos > 0 && nearestDistances[pos - 1] > distance) {
+                    nearestDistances[pos] = nearestDistances[pos - 1];
+                    nearestIds[pos] = nearestIds[pos - 1];
+                    pos--;
+                }
+                nearestDistances[pos] = distance;
+                nearestIds[pos] = j;
+            }
+            for (int k = 0; k < found; k++) {
+                edges.add(i, nearestIds[k]);
+            }
+        }
+        return edges.toArray();
+    }
+
+    /**
+     * Bind the nodes along the outline, and triangulate the polygon they form by zigzagging
+     * between its two sides. Nodes are spawned on a circle, and any triangulation of points on a
+     * circle is a Delaunay triangulation
+     */
+    private static int[] buildMesh(int numNodes) {
+        EdgeSet edges = new EdgeSet(numNodes, 2 * numNodes);
+        for (int i = 0; i < numNodes; i++) {
+            edges.add(i, (i + 1) % numNodes);
+        }
+        int left = 1;
+        int right = numNodes - 1;
+        boolean advanceLeft = true;
+        while (right - left > 1) {
+            edges.add(left, right);
+            if (advanceLeft) {
+                left++;
+            } else {
+                right--;
+            }
+            advanceLeft = !advanceLeft;
+        }
+        return edges.toArray();
+    }
+
+    /**
+     * Collects undirected edges, ignoring duplicates
+     */
+    private static class EdgeSet {
+        private final int numNodes;
+        private long[] keys;
+        private int size = 0;
+
+        EdgeSet(int numNodes, int capacity) {
+            this.numNodes = numNodes;
+            keys = new long[Math.max(capacity, 1)];
+        }
+
+        void add(int id1, int id2) {
+            if (id1 == id2) {
+                return;
+            }
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+            }
+            keys[size++] = (long) Math.min(id1, id2) * numNodes + Math.max(id1, id2);
+        }
+
+        int[] toArray() {
+            Arrays.sort(keys, 0, size);
+            int[] springs = new int[size * 2];
+            int k = 0;
+            for (int i = 0; i < size; i++) {
+                if (i > 0 && keys[i] == keys[i - 1]) {
+                    continue;
+                }
+                springs[k++] = (int) (keys[i] / numNodes);
+                springs[k++] = (int) (keys[i] % numNodes);
+            }
+            return Arrays.copyOf(springs, k);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.greenpudding.util;
+
+import com.greenpudding.model.StressColorScheme;
+
+/**
+ * A precomputed ramp of colors for showing the stress on springs. The stress is normalized
+ * against a full scale stress and mapped to one of NUM_COLORS colors, so coloring a spring
+ * costs a multiplication and an array lookup. The ramp is only rebuilt when the scheme or the
+ * base color changes.
+ */
+public class StressPalette {
+    public static final int NUM_COLORS = 256;
+    // the stress shown with the last color of the ramp. anything higher looks the same
+    public static final double DEFAULT_FULL_SCALE_STRESS = 10;
+
+    // the color TINT turns the base color into under full stress
+    private static final int TINT_FULL_STRESS_COLOR = 0xFFFF0000;
+    // the viridis color map at 9 evenly spaced points
+    private static final int[] HEAT_COLORS = {0xFF440154, 0xFF472D7B, 0xFF3B528B, 0xFF2C728E, 0xFF21918C,
+            0xFF28AE80, 0xFF5EC962, 0xFFADDC30, 0xFFFDE725};
+
+    private final int[] colors = new int[NUM_COLORS];
+    private double fullScaleStress = DEFAULT_FULL_SCALE_STRESS;
+    // what the colors were built from
+    private StressColorScheme scheme;
+    private int baseColor;
+
+    /**
+     * Rebuild the ramp if the scheme or the base color differ from the last time
+     *
+     * @param scheme
+     * @param baseColor the color of the pudding, as 0xAARRGGBB
+     */
+    public void update(StressColorScheme scheme, int baseColor) {
+        if (scheme == this.scheme && baseColor == this.baseColor) {
+            return;
+        }
+        for (int level = 0; level < NUM_COLORS; level++) {
+            double t = (double) level / (NUM_COLORS - 1);
+            if (scheme == StressColorScheme.HEAT) {
+                // interpolate between the 2 closest points of the color map
+                double position = t * (HEAT_COLORS.length - 1);
+                int index = Math.min((int) position, HEAT_COLORS.length - 2);
+                colors[level] = blend(HEAT_COLORS[index], HEAT_COLORS[index + 1], position - index);
+            } else {
+                colors[level] = blend(baseColor, TINT_FULL_STRESS_COLOR, t);
+            }
+        }
+        this.scheme = scheme;
+        this.baseColor = baseColor;
+    }
+
+    /**
+     * @param stress the stress on a spring, either sign
+     * @return the level of the color showing it, from 0 to NUM_COLORS - 1
+     */
+    public int getLevel(double stress) {
+        double level = Math.abs(stress) * ((NUM_COLORS - 1) / fullScaleStress);
+        // also catches NaN
+        return (level < NUM_COLORS - 1) ? (int) level : NUM_COLORS - 1;
+    }
+
+    /**
+     * @param level from getLevel()
+     * @return the color as 0xAARRGGBB
+     */
+    public int getColor(int level) {
+        return colors[level];
+    }
+
+    public double getFullScaleStress() {
+        return fullScaleStress;
+    }
+
+    public void setFullScaleStress(double fullScaleStress) {
+        this.fullScaleStress = fullScaleStress;
+    }
+
+    /**
+     * @return the color at the given fraction of the way from color1 to color2, opaque
+     */
+    private static int blend(int color1, int color2, double fraction) {
+        int red = blendChannel(color1 >> 16, color2 >> 16, fraction);
+        int green = blendChannel(color1 >> 8, color2 >> 8, fraction);
+        int blue = blendChannel(color1, color2, fraction);
+        return 0xFF000000 | (red << 16) | (green << 8) | blue;
+    }
+
+    private static int blendChannel(int channel1, int channel2, double fraction) {
+        int value1 = channel1 & 0xFF;
+        int value2 = channel2 & 0xFF;
+        return (int) Math.round(value1 + (value2 - value1) * fraction);
+    }
+}
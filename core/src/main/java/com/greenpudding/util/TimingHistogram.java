@@ -0,0 +1,123 @@
+package com.greenpudding.util;
+
+/**
+ * Percentiles of the last few durations recorded, e.g. of one phase of the frames. Durations
+ * are counted in buckets a few percent wide, from a microsecond up to a second, so recording
+ * and reading cost the same however long it runs, and never allocate. Safe to record from one
+ * thread and read from another.
+ */
+public class TimingHistogram {
+
+    public static final int DEFAULT_WINDOW = 256;
+
+    // buckets per doubling of the duration, once past a microsecond each. about 3% wide
+    private static final int SUB_BUCKETS = 32;
+    private static final int SUB_BUCKET_BITS = 5;
+    // a second, in microseconds. longer durations are counted as that
+    private static final long MAX_MICROS = 1000000L;
+    private static final int NUM_BUCKETS = bucketOf(MAX_MICROS) + 1;
+
+    // the number of durations in each bucket, among the last ones
+    private final int[] counts = new int[NUM_BUCKETS];
+    // the bucket of each of the last durations, oldest overwritten first
+    private final int[] recent;
+    private int next = 0;
+    private int size = 0;
+    private long total = 0;
+
+    public TimingHistogram() {
+        this(DEFAULT_WINDOW);
+    }
+
+    /**
+     * @param window the number of recent durations the percentiles are taken from
+     */
+    public TimingHistogram(int window) {
+        recent = new int[window];
+    }
+
+    /**
+     * @param nanos a duration, in nanoseconds
+     */
+    public synchronized void record(long nanos) {
+        int bucket = bucketOf(Math.max(0, Math.min(MAX_MICROS, nanos / 1000)));
+        if (size == recent.length) {
+            counts[recent[next]]--;
+        } else {
+            size++;
+        }
+        recent[next] = bucket;
+        counts[bucket]++;
+        next = (next + 1) % recent.length;
+        total++;
+    }
+
+    /**
+     * @param fraction e.g. 0.95 for the 95th percentile
+     * @return the duration that fraction of the recent ones don't exceed, in nanoseconds, rounded
+     * up to the bucket. 0 if none was recorded
+     */
+    public synchronized long getPercentile(double fraction) {
+        if (size == 0) {
+            return 0;
+        }
+        int rank = Math.max(1, (int) Math.ceil(fraction * size));
+        int count = 0;
+        int bucket = 0;
+        while (bucket < NUM_BUCKETS - 1) {
+            count += counts[bucket];
+            if (count >= rank) {
+                break;
+            }
+            bucket++;
+        }
+        return upperBoundOf(bucket) * 1000;
+    }
+
+    /**
+     * @return the longest recent duration, in nanoseconds, rounded up to the bucket
+     */
+    public long getMax() {
+        return getPercentile(1);
+    }
+
+    /**
+     * @return the number of durations the percentiles are taken from
+     */
+    public synchronized int getSize() {
+        return size;
+    }
+
+    /**
+     * @return the number of durations ever recorded
+     */
+    public synchronized long getTotal() {
+        return total;
+    }
+
+    public synchronized void reset() {
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            counts[i] = 0;
+        }
+        next = 0;
+        size = 0;
+        total = 0;
+    }
+
+    private static int bucketOf(long micros) {
+        if (micros < 2 * SUB_BUCKETS) {
+            return (int) micros;
+        }
+        // keep the top bits of the duration
+        int shift = 63 - Long.numberOfLeadingZeros(micros) - SUB_BUCKET_BITS;
+        return shift * SUB_BUCKETS + (int) (micros >> shift);
+    }
+
+    private static long upperBoundOf(int bucket) {
+        if (bucket < 2 * SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        return ((long) (bucket - shift * SUB_BUCKETS + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,102 @@
+package com.greenpudding.util;
+
+import java.util.Arrays;
+
+/**
+ * A weighted undirected graph with a fixed set of edges, stored in compressed sparse row form.
+ * Each edge is stored once, in the row of its lower vertex id. Edges are indexed in order of
+ * (lower id, higher id), so the index of an edge can be used to address its weight directly.
+ */
+public class UndirectedWeightedGraph {
+
+	// edges of vertex i are at [rowStart[i], rowStart[i + 1])
+	private final int[] rowStart;
+
+	// the higher vertex id of each edge
+	private final int[] columns;
+
+	private final double[] edgeWeight;
+
+	/**
+	 * @param numVertices
+	 * @param edges       the edges, as pairs of vertex ids {a0, b0, a1, b1, ...}
+	 */
+	public UndirectedWeightedGraph(int numVertices, int[] edges) {
+		int numEdges = edges.length / 2;
+		long[] keys = new long[numEdges];
+		for (int e = 0; e < numEdges; e++) {
+			int id1 = edges[2 * e];
+			int id2 = edges[2 * e + 1];
+			if (id1 == id2 || id1 < 0 || id2 < 0 || id1 >= numVertices || id2 >= numVertices) {
+				throw new IllegalArgumentException("Invalid edge " + id1 + "-" + id2);
+			}
+			keys[e] = (long) Math.min(id1, id2) * numVertices + Math.max(id1, id2);
+		}
+		Arrays.sort(keys);
+
+		rowStart = new int[numVertices + 1];
+		columns = new int[numEdges];
+		for (int e = 0; e < numEdges; e++) {
+			if (e > 0 && keys[e] == keys[e - 1]) {
+				throw new IllegalArgumentException("Duplicate edge " + keys[e] / numVertices + "-" + keys[e]
+						% numVertices);
+			}
+			rowStart[(int) (keys[e] / numVertices) + 1]++;
+			columns[e] = (int) (keys[e] % numVertices);
+		}
+		for (int i = 0; i < numVertices; i++) {
+			rowStart[i + 1] += rowStart[i];
+		}
+		edgeWeight = new double[numEdges];
+	}
+
+	/**
+	 * Create a graph with the same edges as the given one, with all weights 0
+	 *
+	 * @param other
+	 */
+	public UndirectedWeightedGraph(UndirectedWeightedGraph other) {
+		// the structure never changes after construction, so it can be shared
+		rowStart = other.rowStart;
+		columns = other.columns;
+		edgeWeight = new double[other.edgeWeight.length];
+	}
+
+	public int getNumEdges() {
+		return edgeWeight.length;
+	}
+
+	/**
+	 * @param id1
+	 * @param id2
+	 * @return the index of the edge between the 2 vertices, or -1 if they're not connected
+	 */
+	public int getEdgeIndex(int id1, int id2) {
+		int low = Math.min(id1, id2);
+		int high = Math.max(id1, id2);
+		int index = Arrays.binarySearch(columns, rowStart[low], rowStart[low + 1], high);
+		return (index < 0) ? -1 : index;
+	}
+
+	public double getEdgeWeight(int id1, int id2) {
+		int index = getEdgeIndex(id1, id2);
+		return (index < 0) ? 0 : edgeWeight[index];
+	}
+
+	public void setEdgeWeight(int id1, int id2, double value) {
+		int index = getEdgeIndex(id1, id2);
+		if (index < 0) {
+			throw new IllegalArgumentException("No edge between " + id1 + " and " + id2);
+		}
+		edgeWeight[index] = value;
+	}
+
+	public double getEdgeWeightAt(int edgeIndex) {
+		return edgeWeight[edgeIndex];
+	}
+
+	public void setEdgeWeightAt(int edgeIndex, double value) {
+		edgeWeight[edgeIndex] = value;
+	}
+
+}
@@ -0,0 +1,146 @@
+package com.greenpudding.util;
+
+/**
+ * A small pool of persistent threads that run a task in parallel, each on its own part of the
+ * work. The calling thread takes part too, and returns once all parts are done. Idle threads
+ * exit after a while and are restarted on demand, so an unused pool holds no threads.
+ */
+public class WorkerPool {
+
+    /**
+     * A piece of work that can be split into parts
+     */
+    public interface Task {
+        /**
+         * @param part     which part to do, from 0 to numParts - 1
+         * @param numParts
+         */
+        void run(int part, int numParts);
+    }
+
+    // how long a thread waits for work before exiting
+    private static final long IDLE_TIMEOUT_MS = 2000;
+
+    // guards everything below
+    private final Object lock = new Object();
+    // the background threads. the caller does part 0, thread i does part i + 1
+    private final Thread[] threads;
+    // the task being run
+    private Task task;
+    // increases each time a task is handed out, so threads can tell a new one from the last
+    private long generation = 0;
+    // number of threads that haven't finished their part of the current task
+    private int numPending = 0;
+
+    /**
+     * @param numThreads number of background threads, on top of the calling thread
+     */
+    public WorkerPool(int numThreads) {
+        threads = new Thread[numThreads];
+    }
+
+    /**
+     * @return how many parts each task is split into
+     */
+    public int getNumParts() {
+        return threads.length + 1;
+    }
+
+    /**
+     * Run the task on all threads, and wait until every part is done. Must not be called from
+     * more than one thread at a time
+     *
+     * @param task
+     */
+    public void run(Task task) {
+        synchronized (lock) {
+            startIdleThreads();
+            this.task = task;
+            generation++;
+            numPending = threads.length;
+            lock.notifyAll();
+        }
+        try {
+            task.run(0, getNumParts());
+        } finally {
+            synchronized (lock) {
+                boolean isInterrupted = false;
+                while (numPending > 0) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        // the other parts are still using the task, keep waiting
+                        isInterrupted = true;
+                    }
+                }
+                this.task = null;
+                if (isInterrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    private void startIdleThreads() {
+        for (int i = 0; i < threads.length; i++) {
+            if (threads[i] == null) {
+                // the thread waits for the generation after the current one
+                threads[i] = new Thread(new Worker(i, generation), "PuddingWorker-" + i);
+                threads[i].setDaemon(true);
+                threads[i].start();
+            }
+        }
+    }
+
+    private class Worker implements Runnable {
+        private final int index;
+        // the generation of the last task done
+        private long doneGeneration;
+
+        private Worker(int index, long doneGeneration) {
+            this.index = index;
+            this.doneGeneration = doneGeneration;
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                Task currentTask;
+                synchronized (lock) {
+                    long idleSince = System.currentTimeMillis();
+                    while (generation == doneGeneration) {
+                        long timeLeft = idleSince + IDLE_TIMEOUT_MS - System.currentTimeMillis();
+                        if (timeLeft <= 0) {
+                            // nothing to do for a while. the next task starts a new thread
+                            threads[index] = null;
+                            return;
+                        }
+                        try {
+                            lock.wait(timeLeft);
+                        } catch (InterruptedException e) {
+                            // check for work again
+                        }
+                    }
+                    doneGeneration = generation;
+                    currentTask = task;
+                }
+                boolean isDone = false;
+                try {
+                    currentTask.run(index + 1, getNumParts());
+                    isDone = true;
+                } finally {
+                    synchronized (lock) {
+                        if (!isDone) {
+                            // the thread dies with the exception. let the next task replace it
+                            threads[index] = null;
+                        }
+                        numPending--;
+                        if (numPending == 0) {
+                            lock.notifyAll();
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.greenpudding.model;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The physics step runs on every frame, so it must not allocate once warmed up: garbage
+ * collections would show as dropped frames.
+ */
+public class PuddingPhysicsAllocationTest {
+
+    private static final int NUM_NODES = 200;
+    private static final int WARM_UP_STEPS = 5000;
+    private static final int MEASURED_STEPS = 1000;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    @Test
+    public void updatePhysicsDoesNotAllocate() {
+        for (SpringTopology topology : SpringTopology.values()) {
+            PuddingPhysics physics = new PuddingPhysics();
+            physics.setNumOfNodes(NUM_NODES);
+            physics.setSpringTopology(topology);
+            physics.setBounds(0, 0, 1080, 1920);
+            physics.refreshNodes();
+            physics.setGravity(0, 4.9);
+            physics.startDragging(540, 960, 0);
+            physics.startDragging(400, 900, 1);
+
+            for (int i = 0; i < WARM_UP_STEPS; i++) {
+                step(physics, i);
+            }
+            long before = getAllocatedBytes();
+            for (int i = 0; i < MEASURED_STEPS; i++) {
+                step(physics, i);
+            }
+            long allocated = getAllocatedBytes() - before;
+
+            // the vm itself may charge the thread a few bytes once, e.g. when recompiling. anything
+            // allocated on each step would be at least an object header per step
+            assertTrue(topology + " allocated " + allocated + " bytes", allocated < MEASURED_STEPS);
+        }
+    }
+
+    private static void step(PuddingPhysics physics, int i) {
+        physics.setMousePos(540 + i % 50, 960, 0);
+        physics.setMousePos(400, 900 + i % 30, 1);
+        physics.updatePhysics();
+    }
+
+    private static long getAllocatedBytes() {
+        return THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
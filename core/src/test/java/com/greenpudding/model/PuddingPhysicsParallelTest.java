@@ -0,0 +1,60 @@
+package com.greenpudding.model;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Computing the spring forces on several cores must not change the simulation at all, or a
+ * pudding would move differently depending on the phone.
+ */
+public class PuddingPhysicsParallelTest {
+
+    private static final int NUM_NODES = 200;
+    private static final int NUM_STEPS = 500;
+
+    @Test
+    public void parallelStepsMatchSerialSteps() {
+        PuddingPhysics serial = createPhysics(false);
+        PuddingPhysics parallel = createPhysics(true);
+        assertTrue(parallel.getNumSprings() >= PuddingPhysics.PARALLEL_SPRING_THRESHOLD);
+
+        for (int i = 0; i < NUM_STEPS; i++) {
+            step(serial, i);
+            step(parallel, i);
+        }
+        // on a single core it falls back to the serial path
+        assumeTrue(parallel.getIsParallelEnabled());
+
+        NodeStore expected = serial.getNodes();
+        NodeStore actual = parallel.getNodes();
+        for (int i = 0; i < NUM_NODES; i++) {
+            // exactly the same bits, not just close
+            assertEquals("x of node " + i, Double.doubleToLongBits(expected.x[i]),
+                    Double.doubleToLongBits(actual.x[i]));
+            assertEquals("y of node " + i, Double.doubleToLongBits(expected.y[i]),
+                    Double.doubleToLongBits(actual.y[i]));
+        }
+    }
+
+    private static PuddingPhysics createPhysics(boolean isParallelEnabled) {
+        PuddingPhysics physics = new PuddingPhysics();
+        physics.setNumOfNodes(NUM_NODES);
+        physics.setSpringTopology(SpringTopology.FULL);
+        physics.setIsParallelEnabled(isParallelEnabled);
+        physics.setBounds(0, 0, 1080, 1920);
+        physics.refreshNodes();
+        physics.setGravity(0.3, 4.9);
+        physics.startDragging(540, 960, 0);
+        physics.startDragging(400, 900, 1);
+        return physics;
+    }
+
+    private static void step(PuddingPhysics physics, int i) {
+        physics.setMousePos(540 + i % 50, 960, 0);
+        physics.setMousePos(400, 900 + i % 30, 1);
+        physics.updatePhysics();
+    }
+}
@@ -0,0 +1,50 @@
+package com.greenpudding.model;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The springs of a pudding with many nodes are many, and short, so they'd be too stiff for the
+ * time step: the pudding would shake and fly apart instead of coming to rest.
+ */
+public class PuddingPhysicsStabilityTest {
+
+    // the most nodes the settings offer
+    private static final int MAX_NUM_NODES = 200;
+    private static final int MAX_STEPS = 5000;
+
+    @Test
+    public void settlesWithMostNodes() {
+        for (SpringTopology topology : SpringTopology.values()) {
+            for (int radius = 100; radius <= 500; radius += 200) {
+                assertSettles(topology, MAX_NUM_NODES, radius);
+            }
+        }
+    }
+
+    @Test
+    public void settlesWithAnyNumberOfNodes() {
+        for (SpringTopology topology : SpringTopology.values()) {
+            for (int numNodes = 10; numNodes <= MAX_NUM_NODES; numNodes += 10) {
+                assertSettles(topology, numNodes, PuddingPhysics.DEFAULT_RADIUS);
+            }
+        }
+    }
+
+    private static void assertSettles(SpringTopology topology, int numNodes, int radius) {
+        PuddingPhysics physics = new PuddingPhysics();
+        physics.setRadius(radius);
+        physics.setNumOfNodes(numNodes);
+        physics.setSpringTopology(topology);
+        physics.setBounds(0, 0, 1080, 1920);
+        physics.refreshNodes();
+        physics.setGravity(0, 4.9);
+
+        for (int i = 0; i < MAX_STEPS && !physics.getIsAtRest(); i++) {
+            physics.updatePhysics();
+        }
+        assertTrue(topology + " with " + numNodes + " nodes of radius " + radius + " still moves "
+                + physics.getMaxNodeSpeed() + " per step", physics.getIsAtRest());
+    }
+}
@@ -0,0 +1,146 @@
+package com.greenpudding.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class OutlineTessellatorTest {
+
+    @Test
+    public void fixedSegmentsEndAtTheMidpoints() {
+        OutlineTessellator tessellator = new OutlineTessellator();
+        tessellator.setIsAdaptive(false);
+        tessellator.setSegmentsPerCurve(2);
+        // a square
+        double[] x = {0, 100, 100, 0};
+        double[] y = {0, 0, 100, 100};
+
+        tessellator.tessellate(x, y, 4);
+        assertEquals(8, tessellator.getNumPoints());
+        float[] points = tessellator.getPoints();
+        // the curve of node 0 runs from (0, 50) to (50, 0), half way it's at (12.5, 12.5)
+        assertEquals(12.5, points[0], 1e-4);
+        assertEquals(12.5, points[1], 1e-4);
+        assertEquals(50, points[2], 1e-4);
+        assertEquals(0, points[3], 1e-4);
+        // the one of node 1 from there to (100, 50)
+        assertEquals(87.5, points[4], 1e-4);
+        assertEquals(12.5, points[5], 1e-4);
+        assertEquals(100, points[6], 1e-4);
+        assertEquals(50, points[7], 1e-4);
+    }
+
+    @Test
+    public void adaptiveSegmentsStayWithinTheTolerance() {
+        OutlineTessellator tessellator = new OutlineTessellator();
+        tessellator.setVertexBudget(10000);
+        double[] x = new double[8];
+        double[] y = new double[8];
+        circle(x, y, 300);
+
+        for (double tolerance : new double[]{2, 0.5, 0.1}) {
+            tessellator.setTolerance(tolerance);
+            tessellator.subdivide(x, y, 8);
+            // static shape, so only the bend counts
+            tessellator.subdivide(x, y, 8);
+            int[] segments = tessellator.getSegments();
+            for (int i = 0; i < 8; i++) {
+                double error = getMaxError(x, y, 8, i, segments[i]);
+                assertTrue("node " + i + " strays " + error, error <= tolerance);
+            }
+        }
+    }
+
+    @Test
+    public void straightPartsGetASingleSegment() {
+        OutlineTessellator tessellator = new OutlineTessellator();
+        // nodes 1 and 2 are on the straight line between their neighbours
+        double[] x = {0, 100, 200, 300, 150};
+        double[] y = {0, 0, 0, 0, 300};
+
+        tessellator.subdivide(x, y, 5);
+        assertEquals(1, tessellator.getSegments()[1]);
+        assertEquals(1, tessellator.getSegments()[2]);
+        assertTrue(tessellator.getSegments()[4] > 1);
+    }
+
+    @Test
+    public void movingPartsGetMoreSegments() {
+        OutlineTessellator tessellator = new OutlineTessellator();
+        double[] x = new double[8];
+        double[] y = new double[8];
+        circle(x, y, 300);
+        tessellator.subdivide(x, y, 8);
+        tessellator.subdivide(x, y, 8);
+        int still = tessellator.getSegments()[0];
+
+        x[0] += 80;
+        tessellator.subdivide(x, y, 8);
+        assertTrue(tessellator.getSegments()[0] > still);
+    }
+
+    @Test
+    public void keepsWithinTheBudget() {
+        OutlineTessellator tessellator = new OutlineTessellator();
+        double[] x = new double[12];
+        double[] y = new double[12];
+        circle(x, y, 1000);
+
+        tessellator.setVertexBudget(30);
+        tessellator.tessellate(x, y, 12);
+        assertTrue(tessellator.getNumPoints() <= 30);
+        int total = 0;
+        for (int i = 0; i < 12; i++) {
+            assertTrue(tessellator.getSegments()[i] >= 1);
+            total += tessellator.getSegments()[i];
+        }
+        assertEquals(tessellator.getNumSegments(), total);
+
+        // too small for the nodes: still one segment each
+        tessellator.setVertexBudget(5);
+        tessellator.subdivide(x, y, 12);
+        assertEquals(12, tessellator.getNumSegments());
+    }
+
+    private static void circle(double[] x, double[] y, double radius) {
+        for (int i = 0; i < x.length; i++) {
+            double angle = 2 * Math.PI * i / x.length;
+            x[i] = radius * Math.cos(angle);
+            y[i] = radius * Math.sin(angle);
+        }
+    }
+
+    /**
+     * @return how far the curve of the node strays from its segments, sampled
+     */
+    private static double getMaxError(double[] x, double[] y, int numNodes, int i, int count) {
+        int previous = (i + numNodes - 1) % numNodes;
+        int next = (i + 1) % numNodes;
+        double[] start = {(x[previous] + x[i]) * 0.5, (y[previous] + y[i]) * 0.5};
+        double[] end = {(x[i] + x[next]) * 0.5, (y[i] + y[next]) * 0.5};
+        double maxError = 0;
+        for (int k = 0; k < count; k++) {
+            double[] from = curve(start, x[i], y[i], end, (double) k / count);
+            double[] to = curve(start, x[i], y[i], end, (double) (k + 1) / count);
+            for (int s = 1; s < 20; s++) {
+                double t = (k + s / 20.0) / count;
+                double[] point = curve(start, x[i], y[i], end, t);
+                maxError = Math.max(maxError, distanceToLine(point, from, to));
+            }
+        }
+        return maxError;
+    }
+
+    private static double[] curve(double[] start, double controlX, double controlY, double[] end, double t) {
+        double u = 1 - t;
+        return new double[]{u * u * start[0] + 2 * u * t * controlX + t * t * end[0],
+                u * u * start[1] + 2 * u * t * controlY + t * t * end[1]};
+    }
+
+    private static double distanceToLine(double[] point, double[] from, double[] to) {
+        double dx = to[0] - from[0];
+        double dy = to[1] - from[1];
+        return Math.abs(dx * (point[1] - from[1]) - dy * (point[0] - from[0])) / Math.sqrt(dx * dx + dy * dy);
+    }
+}
@@ -0,0 +1,84 @@
+package com.greenpudding.util;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class SpatialGridTest {
+
+    private static final int NUM_POINTS = 200;
+
+    @Test
+    public void findsTheSamePointsAsCheckingThemAll() {
+        Random random = new Random(42);
+        double[] x = new double[NUM_POINTS];
+        double[] y = new double[NUM_POINTS];
+        for (int i = 0; i < NUM_POINTS; i++) {
+            // some outside the area too
+            x[i] = random.nextDouble() * 1200 - 100;
+            y[i] = random.nextDouble() * 2100 - 100;
+        }
+        SpatialGrid grid = new SpatialGrid();
+        grid.rebuild(0, 0, 1080, 1920, 100, x, y, NUM_POINTS);
+        assertEquals(NUM_POINTS, grid.getNumPoints());
+
+        for (int round = 0; round < 50; round++) {
+            assertFindsWithin(grid, x, y, random.nextDouble() * 1200 - 100, random.nextDouble() * 2100 - 100,
+                    random.nextDouble() * 300);
+            // then move some points around, some far, some within their cell
+            for (int k = 0; k < 20; k++) {
+                int i = random.nextInt(NUM_POINTS);
+                double distance = (k % 2 == 0) ? 500 : 5;
+                x[i] += (random.nextDouble() - 0.5) * distance;
+                y[i] += (random.nextDouble() - 0.5) * distance;
+                grid.move(i, x[i], y[i]);
+            }
+        }
+    }
+
+    @Test
+    public void includesPointsRightOnTheRadius() {
+        double[] x = {100, 200};
+        double[] y = {100, 100};
+        SpatialGrid grid = new SpatialGrid();
+        grid.rebuild(0, 0, 1000, 1000, 30, x, y, 2);
+
+        int[] result = new int[2];
+        assertEquals(2, grid.findWithin(150, 100, 50, x, y, result));
+        assertEquals(0, grid.findWithin(150, 100, 49, x, y, result));
+    }
+
+    @Test
+    public void rebuildForgetsThePreviousPoints() {
+        double[] x = {10, 20, 30};
+        double[] y = {10, 20, 30};
+        SpatialGrid grid = new SpatialGrid();
+        grid.rebuild(0, 0, 100, 100, 10, x, y, 3);
+
+        grid.rebuild(0, 0, 100, 100, 10, x, y, 1);
+        int[] result = new int[3];
+        assertEquals(1, grid.findWithin(20, 20, 50, x, y, result));
+        assertEquals(0, result[0]);
+    }
+
+    private static void assertFindsWithin(SpatialGrid grid, double[] x, double[] y, double centerX, double centerY,
+                                          double radius) {
+        int[] expected = new int[NUM_POINTS];
+        int numExpected = 0;
+        for (int i = 0; i < NUM_POINTS; i++) {
+            double dx = x[i] - centerX;
+            double dy = y[i] - centerY;
+            if (dx * dx + dy * dy <= radius * radius) {
+                expected[numExpected++] = i;
+            }
+        }
+        int[] found = new int[NUM_POINTS];
+        int numFound = grid.findWithin(centerX, centerY, radius, x, y, found);
+        Arrays.sort(found, 0, numFound);
+        assertArrayEquals(Arrays.copyOf(expected, numExpected), Arrays.copyOf(found, numFound));
+    }
+}
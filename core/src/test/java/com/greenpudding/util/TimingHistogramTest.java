@@ -0,0 +1,96 @@
+package com.greenpudding.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TimingHistogramTest {
+
+    private static final long MICROS = 1000L;
+    private static final long MILLIS = 1000000L;
+
+    @Test
+    public void emptyReadsZero() {
+        TimingHistogram histogram = new TimingHistogram();
+
+        assertEquals(0, histogram.getPercentile(0.5));
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getSize());
+    }
+
+    @Test
+    public void shortDurationsAreExactToTheMicrosecond() {
+        TimingHistogram histogram = new TimingHistogram();
+        for (int i = 1; i <= 10; i++) {
+            histogram.record(i * MICROS);
+        }
+
+        assertEquals(5 * MICROS, histogram.getPercentile(0.5));
+        assertEquals(9 * MICROS, histogram.getPercentile(0.9));
+        assertEquals(10 * MICROS, histogram.getMax());
+    }
+
+    @Test
+    public void longDurationsAreRoundedUpByAFewPercent() {
+        for (long nanos = 100 * MICROS; nanos < 1000 * MILLIS; nanos = nanos * 3 / 2) {
+            TimingHistogram histogram = new TimingHistogram();
+            histogram.record(nanos);
+
+            long percentile = histogram.getPercentile(0.5);
+            assertTrue(nanos + " read as " + percentile, percentile >= nanos - MICROS);
+            assertTrue(nanos + " read as " + percentile, percentile <= nanos * 1.04);
+        }
+    }
+
+    @Test
+    public void percentilesRankTheRecordedDurations() {
+        TimingHistogram histogram = new TimingHistogram(100);
+        // 90 fast frames and 10 slow ones
+        for (int i = 0; i < 90; i++) {
+            histogram.record(4 * MILLIS);
+        }
+        for (int i = 0; i < 10; i++) {
+            histogram.record(40 * MILLIS);
+        }
+
+        assertEquals(4, histogram.getPercentile(0.5) / MILLIS);
+        assertEquals(4, histogram.getPercentile(0.9) / MILLIS);
+        assertEquals(40, histogram.getPercentile(0.95) / MILLIS);
+    }
+
+    @Test
+    public void onlyTheLastDurationsCount() {
+        TimingHistogram histogram = new TimingHistogram(4);
+        histogram.record(500 * MILLIS);
+        for (int i = 0; i < 4; i++) {
+            histogram.record(2 * MICROS);
+        }
+
+        assertEquals(2 * MICROS, histogram.getMax());
+        assertEquals(4, histogram.getSize());
+        assertEquals(5, histogram.getTotal());
+    }
+
+    @Test
+    public void clampsDurationsLongerThanASecond() {
+        TimingHistogram histogram = new TimingHistogram();
+        histogram.record(5000 * MILLIS);
+
+        long max = histogram.getMax();
+        assertTrue(max >= 1000 * MILLIS && max < 1100 * MILLIS);
+    }
+
+    @Test
+    public void resetForgetsEverything() {
+        TimingHistogram histogram = new TimingHistogram();
+        histogram.record(3 * MILLIS);
+
+        histogram.reset();
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getSize());
+        assertEquals(0, histogram.getTotal());
+        histogram.record(1 * MICROS);
+        assertEquals(1 * MICROS, histogram.getMax());
+    }
+}
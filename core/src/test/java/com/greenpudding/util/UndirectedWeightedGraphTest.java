@@ -0,0 +1,79 @@
+package com.greenpudding.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class UndirectedWeightedGraphTest {
+
+    @Test
+    public void indexesEdgesInOrderOfTheirVertices() {
+        // given out of order, and with the higher id first
+        UndirectedWeightedGraph graph = new UndirectedWeightedGraph(4, new int[]{3, 1, 0, 2, 1, 0, 0, 3});
+
+        assertEquals(4, graph.getNumEdges());
+        assertEquals(0, graph.getEdgeIndex(0, 1));
+        assertEquals(1, graph.getEdgeIndex(0, 2));
+        assertEquals(2, graph.getEdgeIndex(0, 3));
+        assertEquals(3, graph.getEdgeIndex(1, 3));
+    }
+
+    @Test
+    public void findsEdgesFromEitherEnd() {
+        UndirectedWeightedGraph graph = new UndirectedWeightedGraph(4, new int[]{0, 1, 1, 3});
+
+        assertEquals(graph.getEdgeIndex(1, 3), graph.getEdgeIndex(3, 1));
+        assertEquals(-1, graph.getEdgeIndex(0, 3));
+        assertEquals(-1, graph.getEdgeIndex(2, 1));
+    }
+
+    @Test
+    public void weightsAreSharedByBothDirectionsAndByIndex() {
+        UndirectedWeightedGraph graph = new UndirectedWeightedGraph(3, new int[]{0, 1, 1, 2});
+
+        graph.setEdgeWeight(2, 1, 5);
+        assertEquals(5, graph.getEdgeWeight(1, 2), 0);
+        assertEquals(5, graph.getEdgeWeightAt(graph.getEdgeIndex(1, 2)), 0);
+
+        graph.setEdgeWeightAt(0, 7);
+        assertEquals(7, graph.getEdgeWeight(1, 0), 0);
+        // no edge weighs nothing
+        assertEquals(0, graph.getEdgeWeight(0, 2), 0);
+    }
+
+    @Test
+    public void copyHasTheSameEdgesWithoutTheWeights() {
+        UndirectedWeightedGraph graph = new UndirectedWeightedGraph(3, new int[]{0, 1, 1, 2});
+        graph.setEdgeWeight(0, 1, 3);
+
+        UndirectedWeightedGraph copy = new UndirectedWeightedGraph(graph);
+        assertEquals(2, copy.getNumEdges());
+        assertEquals(graph.getEdgeIndex(1, 2), copy.getEdgeIndex(1, 2));
+        assertEquals(0, copy.getEdgeWeight(0, 1), 0);
+
+        // the weights are the copy's own
+        copy.setEdgeWeight(1, 2, 4);
+        assertEquals(0, graph.getEdgeWeight(1, 2), 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsDuplicateEdges() {
+        new UndirectedWeightedGraph(3, new int[]{0, 1, 1, 0});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsLoops() {
+        new UndirectedWeightedGraph(3, new int[]{1, 1});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsVerticesOutOfRange() {
+        new UndirectedWeightedGraph(3, new int[]{0, 3});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsSettingAMissingEdge() {
+        UndirectedWeightedGraph graph = new UndirectedWeightedGraph(3, new int[]{0, 1});
+        graph.setEdgeWeight(0, 2, 1);
+    }
+}